@@ -0,0 +1,105 @@
+package com.concertfever.concertfever_backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Configuration class for the executors running work outside of request threads.
+ * <p>
+ * The email executor is bounded in both threads and queued tasks. When its queue is full, the submitting thread
+ * sends the email itself, which slows down producers instead of dropping mail or growing memory without limit.
+ * </p>
+ * <p>
+ * The password hashing executor is bounded as well, but rejects work once its queue is full. BCrypt is deliberately
+ * CPU-heavy, so a login burst is turned away early instead of occupying every request thread.
+ * </p>
+ * <p>
+ * Bulk user imports hash their passwords on a separate fork-join pool, so an import does not queue behind the
+ * logins on the password hashing executor. By default it uses half of the cores, leaving the rest for logins and
+ * request handling.
+ * </p>
+ * <p>
+ * Live availability messages are written to subscribers on their own small executor, so a slow client never
+ * holds up the scheduler thread that computes the updates. Each task writes to a batch of subscribers, so its queue
+ * is sized to hold a couple of pushes to every subscriber the application accepts.
+ * </p>
+ */
+@Configuration
+public class AsyncConfig {
+
+    public static final String EMAIL_EXECUTOR = "emailExecutor";
+    public static final String PASSWORD_HASHING_EXECUTOR = "passwordHashingExecutor";
+    public static final String USER_IMPORT_HASHING_POOL = "userImportHashingPool";
+    public static final String AVAILABILITY_PUSH_EXECUTOR = "availabilityPushExecutor";
+
+    // Declaring any executor bean switches off Boot's default one, which also runs async MVC responses
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    @Primary
+    public ThreadPoolTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
+    @Bean(name = EMAIL_EXECUTOR)
+    public ThreadPoolTaskExecutor emailExecutor(@Value("${concertfever.email.pool-size:2}") int poolSize,
+                                                @Value("${concertfever.email.queue-capacity:500}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("email-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        // Let queued confirmations go out on shutdown
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    @Bean(name = PASSWORD_HASHING_EXECUTOR)
+    public ThreadPoolTaskExecutor passwordHashingExecutor(@Value("${concertfever.password-hashing.pool-size:4}") int poolSize,
+                                                          @Value("${concertfever.password-hashing.queue-capacity:64}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("password-hashing-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+
+    @Bean(name = AVAILABILITY_PUSH_EXECUTOR)
+    public ThreadPoolTaskExecutor availabilityPushExecutor(@Value("${concertfever.availability.push-pool-size:4}") int poolSize,
+                                                           @Value("${concertfever.availability.max-subscribers:20000}") int maxSubscribers,
+                                                           @Value("${concertfever.availability.push-batch-size:200}") int pushBatchSize) {
+        // Room for the batches of an availability push and a heartbeat to every subscriber at the same time
+        int queueCapacity = 2 * ((maxSubscribers + pushBatchSize - 1) / pushBatchSize);
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("availability-push-");
+        // Rejected batches keep their messages queued for the next push
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+
+    @Bean(name = USER_IMPORT_HASHING_POOL, destroyMethod = "shutdown")
+    public ForkJoinPool userImportHashingPool(@Value("${concertfever.user-import.hashing-parallelism:0}") int parallelism) {
+        ForkJoinPool.ForkJoinWorkerThreadFactory threadFactory = pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("user-import-hashing-" + thread.getPoolIndex());
+            return thread;
+        };
+        // 0 uses half of the available cores
+        int threads = parallelism > 0 ? parallelism : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new ForkJoinPool(threads, threadFactory, null, false);
+    }
+}
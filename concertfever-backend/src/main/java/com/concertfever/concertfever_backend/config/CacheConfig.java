@@ -0,0 +1,52 @@
+package com.concertfever.concertfever_backend.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Configuration class for enabling Spring's cache abstraction.
+ * <p>
+ * The cache provider (Caffeine), the cache names and their size/TTL limits are configured in
+ * {@code application.properties}. The names are kept here so services can refer to them consistently.
+ * </p>
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String ALL_EVENTS_CACHE = "allEvents";
+    public static final String EVENTS_BY_CATEGORY_CACHE = "eventsByCategory";
+    public static final String EVENT_BY_ID_CACHE = "eventById";
+    public static final String ALL_EVENT_SUMMARIES_CACHE = "allEventSummaries";
+    public static final String EVENT_SUMMARIES_BY_CATEGORY_CACHE = "eventSummariesByCategory";
+    public static final String USER_ID_BY_EMAIL_CACHE = "userIdByEmail";
+
+    /**
+     * Registers the email to user ID cache with its own limits.
+     * <p>
+     * The mapping never changes once a user exists, so unlike the catalog caches it is sized for every active user
+     * and only expires when unused.
+     * </p>
+     *
+     * @param maxSize                 The maximum number of cached emails.
+     * @param expireAfterAccessMinutes How long an unused entry is kept.
+     * @return The customizer registering the cache.
+     */
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> userIdCacheCustomizer(
+            @Value("${concertfever.user-cache.max-size:100000}") long maxSize,
+            @Value("${concertfever.user-cache.expire-after-access-minutes:30}") long expireAfterAccessMinutes) {
+        return cacheManager -> cacheManager.registerCustomCache(USER_ID_BY_EMAIL_CACHE, Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(Duration.ofMinutes(expireAfterAccessMinutes))
+                .recordStats()
+                .build());
+    }
+}
@@ -0,0 +1,19 @@
+package com.concertfever.concertfever_backend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Configuration class for enabling Spring's scheduled task execution.
+ * <p>
+ * Used by background jobs such as pushing coalesced ticket availability updates.
+ * </p>
+ * <p>
+ * Spring Boot runs all scheduled jobs on a single thread by default, so one slow job would delay every other one.
+ * The pool is sized with {@code spring.task.scheduling.pool.size}.
+ * </p>
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
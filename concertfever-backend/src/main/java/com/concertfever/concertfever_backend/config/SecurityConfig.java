@@ -1,11 +1,18 @@
 package com.concertfever.concertfever_backend.config;
 
+import com.concertfever.concertfever_backend.service.SessionTokenService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+
+import java.util.Set;
 
 import static org.springframework.security.config.Customizer.withDefaults;
 
@@ -24,22 +31,36 @@ public class SecurityConfig {
      * Configures the security filter chain for HTTP requests.
      * <p>
      * This method sets up the security filter chain to permit all requests
-     * without authentication and disables CSRF (Cross-Site Request Forgery)
-     * protection for all endpoints. Basic HTTP authentication is enabled.
+     * without authentication, except for the bulk user import and the actuator
+     * endpoints other than health, which require an admin's session token. CSRF (Cross-Site Request Forgery) protection is
+     * disabled for all endpoints. Basic HTTP authentication is enabled.
+     * Requests carrying a session token issued by {@code /user/login} are authenticated
+     * statelessly by the {@link SessionTokenFilter}.
      * </p>
      *
      * @param http the {@link HttpSecurity} object used to configure HTTP security
+     * @param sessionTokenService the service verifying session tokens
+     * @param adminEmails the emails of the users allowed to use admin endpoints
      * @return the configured {@link SecurityFilterChain}
      * @throws Exception if an error occurs during configuration
      */
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
-        // Allow all requests without authentication
-        http.authorizeHttpRequests(auth -> auth.anyRequest().permitAll())
+    public SecurityFilterChain filterChain(HttpSecurity http, SessionTokenService sessionTokenService,
+                                           @Value("${concertfever.security.admin-emails:}") Set<String> adminEmails) throws Exception {
+        // Creating accounts in bulk and inspecting or clearing caches and metrics are reserved for admins;
+        // allow all other requests without authentication
+        http.authorizeHttpRequests(auth -> auth
+                        .requestMatchers(HttpMethod.POST, "/user/bulkimport").hasRole("ADMIN")
+                        .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
+                        .anyRequest().permitAll())
                 // Enable basic HTTP authentication
                 .httpBasic(withDefaults())
                 // Disable CSRF protection for all endpoints
-                .csrf(c -> c.ignoringRequestMatchers("/**").disable());
+                .csrf(c -> c.ignoringRequestMatchers("/**").disable())
+                // Authenticate session tokens without keeping any server-side session
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .addFilterBefore(new SessionTokenFilter(sessionTokenService, adminEmails), BasicAuthenticationFilter.class);
         return http.build();
     }
 
@@ -47,13 +68,15 @@ public class SecurityConfig {
      * Provides a BCryptPasswordEncoder bean for encoding passwords.
      * <p>
      * This method returns an instance of {@link BCryptPasswordEncoder} which
-     * is used for hashing and verifying passwords securely.
+     * is used for hashing and verifying passwords securely. Raising the cost factor
+     * makes existing hashes be upgraded on the users' next successful login.
      * </p>
      *
+     * @param strength the BCrypt cost factor (log rounds)
      * @return a {@link BCryptPasswordEncoder} instance
      */
     @Bean
-    public BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public BCryptPasswordEncoder passwordEncoder(@Value("${concertfever.security.bcrypt-strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
     }
 }
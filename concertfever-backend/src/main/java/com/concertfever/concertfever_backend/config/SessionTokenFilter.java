@@ -0,0 +1,76 @@
+package com.concertfever.concertfever_backend.config;
+
+import com.concertfever.concertfever_backend.service.SessionPrincipal;
+import com.concertfever.concertfever_backend.service.SessionTokenService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Filter authenticating requests that carry a session token in an {@code Authorization: Bearer} header.
+ * <p>
+ * A valid token makes its {@link SessionPrincipal} the request's principal. Requests without a token pass through
+ * unauthenticated, while requests with an invalid or expired token are rejected with 401 so the client logs in again.
+ * Users whose email is configured as an admin email are additionally granted {@code ROLE_ADMIN}.
+ * </p>
+ */
+public class SessionTokenFilter extends OncePerRequestFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final List<SimpleGrantedAuthority> USER_AUTHORITIES = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+    private static final List<SimpleGrantedAuthority> ADMIN_AUTHORITIES = List.of(
+            new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_ADMIN"));
+
+    private final SessionTokenService sessionTokenService;
+    private final Set<String> adminEmails;
+
+    /**
+     * Constructs an instance of {@link SessionTokenFilter}.
+     *
+     * @param sessionTokenService The service verifying session tokens.
+     * @param adminEmails         The emails of the users granted {@code ROLE_ADMIN}.
+     */
+    public SessionTokenFilter(SessionTokenService sessionTokenService, Set<String> adminEmails) {
+        this.sessionTokenService = sessionTokenService;
+        this.adminEmails = adminEmails.stream()
+                .map(email -> email.trim().toLowerCase(Locale.ROOT))
+                .filter(email -> !email.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization == null || !authorization.startsWith(BEARER_PREFIX)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        Optional<SessionPrincipal> principal = sessionTokenService.verify(authorization.substring(BEARER_PREFIX.length()).trim());
+        if (principal.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Invalid or expired session token");
+            return;
+        }
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        boolean admin = adminEmails.contains(principal.get().email().toLowerCase(Locale.ROOT));
+        context.setAuthentication(new UsernamePasswordAuthenticationToken(principal.get(), null,
+                admin ? ADMIN_AUTHORITIES : USER_AUTHORITIES));
+        SecurityContextHolder.setContext(context);
+        filterChain.doFilter(request, response);
+    }
+}
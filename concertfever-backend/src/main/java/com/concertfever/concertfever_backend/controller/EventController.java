@@ -1,15 +1,24 @@
 package com.concertfever.concertfever_backend.controller;
 
-import com.concertfever.concertfever_backend.dto.EventFullDetailsDto;
+import com.concertfever.concertfever_backend.dto.EventPageDto;
+import com.concertfever.concertfever_backend.dto.EventSummaryDto;
+import com.concertfever.concertfever_backend.service.EventSearchIndex;
 import com.concertfever.concertfever_backend.service.EventService;
+import com.concertfever.concertfever_backend.service.EventSnapshotService;
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -21,40 +30,82 @@ import java.util.List;
 public class EventController {
 
     private final EventService eventService;
+    private final EventSnapshotService eventSnapshotService;
+    private final EventSearchIndex eventSearchIndex;
 
     /**
      * Constructs an instance of {@link EventController}.
      *
-     * @param eventService The service for handling event-related operations.
+     * @param eventService         The service for handling event-related operations.
+     * @param eventSnapshotService The service providing pre-serialized event responses.
+     * @param eventSearchIndex     The in-memory full-text index over events.
      */
-    public EventController(EventService eventService) {
+    public EventController(EventService eventService, EventSnapshotService eventSnapshotService, EventSearchIndex eventSearchIndex) {
         this.eventService = eventService;
+        this.eventSnapshotService = eventSnapshotService;
+        this.eventSearchIndex = eventSearchIndex;
     }
 
     /**
      * Retrieves full details for all events.
+     * <p>
+     * The response is served from a pre-serialized snapshot. A request whose {@code If-None-Match} header
+     * matches the current ETag is answered with NOT_MODIFIED.
+     * </p>
      *
+     * @param ifNoneMatch    The ETag(s) the client already holds (optional).
+     * @param acceptEncoding The encodings accepted by the client (optional).
      * @return A {@link ResponseEntity} containing a list of full details for all events.
      */
     @GetMapping("/getalleventsfulldetails")
-    public ResponseEntity<List<EventFullDetailsDto>> getAllEventsFullDetails() {
-        List<EventFullDetailsDto> allEvents = eventService.getAllEventsFullDetails();
-        return ResponseEntity.ok(allEvents);
+    public ResponseEntity<byte[]> getAllEventsFullDetails(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                          @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return snapshotResponse(eventSnapshotService.getAllEventsSnapshot(), ifNoneMatch, acceptEncoding);
     }
 
 
     /**
      * Retrieves full details for events filtered by category.
      *
-     * @param categoryStr The category to filter events by.
+     * @param categoryStr    The category to filter events by.
+     * @param ifNoneMatch    The ETag(s) the client already holds (optional).
+     * @param acceptEncoding The encodings accepted by the client (optional).
      * @return A {@link ResponseEntity} containing a list of full details for events in the specified category,
      *         or a BAD_REQUEST status if the category is invalid.
      */
     @GetMapping("/geteventfulldetailsbycategory")
-    public ResponseEntity<?> getEventFullDetailsByCategory(@RequestParam("category") String categoryStr) {
+    public ResponseEntity<?> getEventFullDetailsByCategory(@RequestParam("category") String categoryStr,
+                                                           @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                           @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         try {
-            List<EventFullDetailsDto> eventDtos = eventService.getEventFullDetailsByCategory(categoryStr);
-            return ResponseEntity.ok(eventDtos);
+            return snapshotResponse(eventSnapshotService.getEventsByCategorySnapshot(categoryStr), ifNoneMatch, acceptEncoding);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Retrieves summaries of all events for list views.
+     * The description is only returned by {@code /geteventfulldetailsbyeventid}.
+     *
+     * @return A {@link ResponseEntity} containing a list of event summaries.
+     */
+    @GetMapping("/getalleventsummaries")
+    public ResponseEntity<List<EventSummaryDto>> getAllEventSummaries() {
+        return ResponseEntity.ok(eventService.getAllEventSummaries());
+    }
+
+    /**
+     * Retrieves summaries of events filtered by category for list views.
+     *
+     * @param categoryStr The category to filter events by.
+     * @return A {@link ResponseEntity} containing a list of event summaries in the specified category,
+     *         or a BAD_REQUEST status if the category is invalid.
+     */
+    @GetMapping("/geteventsummariesbycategory")
+    public ResponseEntity<?> getEventSummariesByCategory(@RequestParam("category") String categoryStr) {
+        try {
+            return ResponseEntity.ok(eventService.getEventSummariesByCategory(categoryStr));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
         }
@@ -63,17 +114,131 @@ public class EventController {
     /**
      * Retrieves full details for an event specified by its ID.
      *
-     * @param eventId The ID of the event to retrieve.
+     * @param eventId        The ID of the event to retrieve.
+     * @param ifNoneMatch    The ETag(s) the client already holds (optional).
+     * @param acceptEncoding The encodings accepted by the client (optional).
      * @return A {@link ResponseEntity} containing full details of the specified event,
      *         or a NOT_FOUND status if the event does not exist.
      */
     @GetMapping("/geteventfulldetailsbyeventid")
-    public ResponseEntity<?> getEventFullDetailsByEventId(@RequestParam("eventId") Integer eventId) {
+    public ResponseEntity<?> getEventFullDetailsByEventId(@RequestParam("eventId") Integer eventId,
+                                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                          @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         try {
-            EventFullDetailsDto dto = eventService.getEventFullDetailsByEventId(eventId);
-            return ResponseEntity.ok(dto);
+            return snapshotResponse(eventSnapshotService.getEventSnapshot(eventId), ifNoneMatch, acceptEncoding);
         } catch (EntityNotFoundException e) {
             return ResponseEntity.notFound().build();
         }
     }
+
+    /**
+     * Retrieves one page of events, optionally filtered by category, start date range and venue city.
+     * <p>
+     * Events are ordered by start date and event ID. To fetch the next page, pass the {@code nextStartDate}
+     * and {@code nextEventId} of the previous response as {@code afterStartDate} and {@code afterEventId}.
+     * </p>
+     *
+     * @param categoryStr    The category to filter events by (optional).
+     * @param fromDate       The earliest start date to include, in ISO format (optional).
+     * @param toDate         The latest start date to include, in ISO format (optional).
+     * @param city           The venue city to filter events by (optional).
+     * @param afterStartDate The start date cursor from the previous page (optional).
+     * @param afterEventId   The event ID cursor from the previous page (optional).
+     * @param size           The maximum number of events per page.
+     * @return A {@link ResponseEntity} containing the page of events,
+     *         or a BAD_REQUEST status if the category or page size is invalid.
+     */
+    @GetMapping("/geteventspage")
+    public ResponseEntity<?> getEventPage(@RequestParam(value = "category", required = false) String categoryStr,
+                                          @RequestParam(value = "fromDate", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+                                          @RequestParam(value = "toDate", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+                                          @RequestParam(value = "city", required = false) String city,
+                                          @RequestParam(value = "afterStartDate", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate afterStartDate,
+                                          @RequestParam(value = "afterEventId", required = false) Integer afterEventId,
+                                          @RequestParam(value = "size", defaultValue = "20") int size) {
+        try {
+            EventPageDto page = eventService.getEventPage(categoryStr, fromDate, toDate, city, afterStartDate, afterEventId, size);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Searches events by name, description, venue name and city.
+     * <p>
+     * Every term of the query has to match the start of a word. Results are ranked by relevance,
+     * with matches in the event name ranking highest.
+     * </p>
+     *
+     * @param query The search query.
+     * @param limit The maximum number of results.
+     * @return A {@link ResponseEntity} containing the matching events, most relevant first,
+     *         or a BAD_REQUEST status if the query is blank or the limit is invalid.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> searchEvents(@RequestParam("query") String query,
+                                          @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        if (query.isBlank() || limit < 1 || limit > 100) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Query must not be blank and limit must be between 1 and 100");
+        }
+        List<Integer> eventIds = eventSearchIndex.search(query, limit);
+        return ResponseEntity.ok(eventService.getEventFullDetailsByEventIds(eventIds));
+    }
+
+    // Helper Method
+    // Builds the response for a snapshot, answering NOT_MODIFIED when the client's ETag is still current
+    private ResponseEntity<byte[]> snapshotResponse(EventSnapshotService.Snapshot snapshot, String ifNoneMatch, String acceptEncoding) {
+        boolean gzipped = snapshot.gzip() != null && acceptsGzip(acceptEncoding);
+        String eTag = gzipped ? snapshot.gzipETag() : snapshot.eTag();
+
+        if (snapshot.matches(ifNoneMatch, gzipped)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(eTag)
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (gzipped) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(snapshot.gzip());
+        }
+        return builder.body(snapshot.json());
+    }
+
+    // Helper Method
+    // An explicit gzip entry takes precedence over the * wildcard, and a q-value of 0 means "not acceptable"
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQuality = null;
+        Double wildcardQuality = null;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim().toLowerCase();
+            double quality = 1.0;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzipQuality = quality;
+            } else if (coding.equals("*")) {
+                wildcardQuality = quality;
+            }
+        }
+        Double effective = gzipQuality != null ? gzipQuality : wildcardQuality;
+        return effective != null && effective > 0;
+    }
 }
@@ -1,46 +1,97 @@
 package com.concertfever.concertfever_backend.controller;
 
+import com.concertfever.concertfever_backend.dto.HoldTicketsDto;
 import com.concertfever.concertfever_backend.dto.PurchaseTicketsDto;
+import com.concertfever.concertfever_backend.dto.QueueStatusDto;
+import com.concertfever.concertfever_backend.dto.TicketAvailabilitySnapshotDto;
 import com.concertfever.concertfever_backend.dto.TicketCategoryDto;
-import com.concertfever.concertfever_backend.dto.TicketDto;
+import com.concertfever.concertfever_backend.dto.TicketHoldDto;
+import com.concertfever.concertfever_backend.service.IdempotencyService;
+import com.concertfever.concertfever_backend.service.SessionPrincipal;
+import com.concertfever.concertfever_backend.service.TicketAvailabilityPublisher;
+import com.concertfever.concertfever_backend.service.TicketAvailabilitySnapshotService;
+import com.concertfever.concertfever_backend.service.TicketHoldService;
 import com.concertfever.concertfever_backend.service.TicketService;
+import com.concertfever.concertfever_backend.service.WaitingRoomService;
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Controller for handling ticket-related HTTP requests.
  * Provides endpoints for retrieving user tickets, ticket categories, and purchasing tickets.
+ * <p>
+ * Requests authenticated with a session token may only act on the token's own user; any other user ID or email is refused.
+ * </p>
  */
 @RestController
 @RequestMapping("/ticket")
 public class TicketController {
 
     private final TicketService ticketService;
+    private final TicketAvailabilityPublisher ticketAvailabilityPublisher;
+    private final TicketAvailabilitySnapshotService ticketAvailabilitySnapshotService;
+    private final TicketHoldService ticketHoldService;
+    private final WaitingRoomService waitingRoomService;
+    private final IdempotencyService idempotencyService;
 
     /**
      * Constructs an instance of {@link TicketController}.
      *
-     * @param ticketService The service for handling ticket-related operations.
+     * @param ticketService                     The service for handling ticket-related operations.
+     * @param ticketAvailabilityPublisher       The publisher streaming live ticket availability.
+     * @param ticketAvailabilitySnapshotService The service holding the periodically refreshed availability snapshot.
+     * @param ticketHoldService                 The service for holding tickets while a purchase is completed.
+     * @param waitingRoomService                The service admitting buyers to purchases.
+     * @param idempotencyService                The service deduplicating retried purchases.
      */
-    public TicketController(TicketService ticketService) {
+    public TicketController(TicketService ticketService, TicketAvailabilityPublisher ticketAvailabilityPublisher,
+                            TicketAvailabilitySnapshotService ticketAvailabilitySnapshotService, TicketHoldService ticketHoldService,
+                            WaitingRoomService waitingRoomService, IdempotencyService idempotencyService) {
         this.ticketService = ticketService;
+        this.ticketAvailabilityPublisher = ticketAvailabilityPublisher;
+        this.ticketAvailabilitySnapshotService = ticketAvailabilitySnapshotService;
+        this.ticketHoldService = ticketHoldService;
+        this.waitingRoomService = waitingRoomService;
+        this.idempotencyService = idempotencyService;
     }
 
     /**
      * Retrieves all tickets associated with a user identified by email.
+     * <p>
+     * The tickets are streamed to the response as they are read from the database.
+     * </p>
      *
-     * @param email The email of the user whose tickets are to be retrieved.
-     * @return A {@link ResponseEntity} containing a list of tickets for the user, or a NOT_FOUND status if the user is not found.
+     * @param email     The email of the user whose tickets are to be retrieved. Optional with a session token.
+     * @param principal The user authenticated by the session token, if any.
+     * @return A {@link ResponseEntity} streaming a list of tickets for the user, or a NOT_FOUND status if the user is not found.
      */
     @GetMapping("/getalluserticketsbyemail")
-    public ResponseEntity<?> getAllTicketsByUserEmail(@RequestParam String email) {
+    public ResponseEntity<?> getAllTicketsByUserEmail(@RequestParam(required = false) String email,
+                                                      @AuthenticationPrincipal SessionPrincipal principal) {
+        if (principal != null && email != null && !principal.hasEmail(email)) {
+            return forbidden();
+        }
+        if (principal == null && email == null) {
+            return new ResponseEntity<>("Either a session token or an email is required", HttpStatus.BAD_REQUEST);
+        }
         try {
-            List<TicketDto> tickets = ticketService.getAllTicketsByUserEmail(email);
-            return new ResponseEntity<>(tickets, HttpStatus.OK);
+            // The token already carries the user ID, so no lookup by email is needed
+            Integer userId = principal != null ? principal.userId() : ticketService.getUserIdByEmail(email);
+            StreamingResponseBody tickets = out -> ticketService.writeTicketsByUserId(userId, out);
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(tickets);
         } catch (EntityNotFoundException e) {
             return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
         }
@@ -61,21 +112,207 @@ public class TicketController {
         return new ResponseEntity<>(ticketCategories, HttpStatus.OK);
     }
 
+    /**
+     * Retrieves the remaining quantity of every ticket category of every event in a compact form.
+     * <p>
+     * The response is served from an in-memory snapshot that is refreshed periodically, so it may lag
+     * behind the latest purchases by up to one refresh interval.
+     * </p>
+     *
+     * @return A {@link ResponseEntity} containing the availability snapshot.
+     */
+    @GetMapping("/getallticketavailability")
+    public ResponseEntity<TicketAvailabilitySnapshotDto> getAllTicketAvailability() {
+        return new ResponseEntity<>(ticketAvailabilitySnapshotService.getSnapshot(), HttpStatus.OK);
+    }
+
+    /**
+     * Streams live ticket availability for an event as Server-Sent Events.
+     * <p>
+     * A {@code snapshot} message with every ticket category is sent first. Afterwards an {@code availability}
+     * message containing only the changed categories is pushed whenever purchases for the event commit.
+     * </p>
+     *
+     * @param eventId The ID of the event whose ticket availability is to be streamed.
+     * @return A {@link ResponseEntity} containing the {@link SseEmitter} streaming the availability updates,
+     *         or a SERVICE_UNAVAILABLE status if the maximum number of streams is already open.
+     * @throws IOException if the initial snapshot could not be sent.
+     */
+    @GetMapping(value = "/streamticketavailabilitybyeventid", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamTicketAvailabilityByEventId(@RequestParam int eventId) throws IOException {
+        try {
+            return ResponseEntity.ok(ticketAvailabilityPublisher.subscribe(eventId));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "30").build();
+        }
+    }
+
+    /**
+     * Holds tickets for a user for a limited time, so they cannot be sold to anyone else while the purchase is completed.
+     * The returned hold ID can be passed to {@code /purchasetickets}. Like purchases, holds require an admitted waiting
+     * room token for the held event while the waiting room is enabled. Holding does not use up the token, so it can
+     * still be used for the purchase.
+     *
+     * @param holdTicketsDto The data transfer object containing the user ID and the quantities to hold per ticket category.
+     * @param admissionToken The admitted waiting room token, required while the waiting room is enabled.
+     * @param principal      The user authenticated by the session token, if any.
+     * @return A {@link ResponseEntity} containing the hold, or an error message with the appropriate HTTP status.
+     */
+    @PostMapping("/holdtickets")
+    public ResponseEntity<?> holdTickets(@RequestBody HoldTicketsDto holdTicketsDto,
+                                         @RequestHeader(value = "X-Admission-Token", required = false) String admissionToken,
+                                         @AuthenticationPrincipal SessionPrincipal principal) {
+        if (isOtherUser(principal, holdTicketsDto.userId())) {
+            return forbidden();
+        }
+        Set<Integer> eventIds = new HashSet<>();
+        if (holdTicketsDto.items() != null) {
+            holdTicketsDto.items().forEach(item -> eventIds.add(item.eventId()));
+        }
+        WaitingRoomService.Permit permit;
+        try {
+            permit = waitingRoomService.enter(admissionToken, holdTicketsDto.userId(), eventIds);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.TOO_MANY_REQUESTS);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(e.getMessage());
+        }
+
+        try (permit) {
+            TicketHoldDto hold = ticketHoldService.holdTickets(holdTicketsDto);
+            return new ResponseEntity<>(hold, HttpStatus.CREATED);
+        } catch (EntityNotFoundException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
+        }
+    }
+
+    /**
+     * Releases a hold before it expires and returns its tickets to the inventory.
+     *
+     * @param holdId The ID of the hold.
+     * @param userId    The ID of the user owning the hold.
+     * @param principal The user authenticated by the session token, if any.
+     * @return A {@link ResponseEntity} with a success message, or a NOT_FOUND status if the hold is not found or has expired.
+     */
+    @DeleteMapping("/releasehold")
+    public ResponseEntity<String> releaseHold(@RequestParam String holdId, @RequestParam Integer userId,
+                                              @AuthenticationPrincipal SessionPrincipal principal) {
+        if (isOtherUser(principal, userId)) {
+            return forbidden();
+        }
+        try {
+            ticketHoldService.releaseHold(holdId, userId);
+            return new ResponseEntity<>("Hold released successfully", HttpStatus.OK);
+        } catch (EntityNotFoundException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        }
+    }
+
+    /**
+     * Joins the waiting room of an event, or returns the buyer's existing place in it.
+     *
+     * @param eventId The ID of the event the buyer wants to purchase tickets for.
+     * @param userId    The ID of the buyer.
+     * @param principal The user authenticated by the session token, if any.
+     * @return A {@link ResponseEntity} containing the queue token and position, or a SERVICE_UNAVAILABLE status if the queue is full.
+     */
+    @PostMapping("/joinqueue")
+    public ResponseEntity<?> joinQueue(@RequestParam int eventId, @RequestParam int userId,
+                                       @AuthenticationPrincipal SessionPrincipal principal) {
+        if (isOtherUser(principal, userId)) {
+            return forbidden();
+        }
+        try {
+            return new ResponseEntity<>(waitingRoomService.joinQueue(eventId, userId), HttpStatus.OK);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "30").body(e.getMessage());
+        }
+    }
+
+    /**
+     * Retrieves the position of a queue token, or its admission window once it has been admitted.
+     * Buyers are expected to poll this endpoint; those who stop polling lose their place.
+     *
+     * @param token The token returned by {@code /joinqueue}.
+     * @return A {@link ResponseEntity} containing the queue status, or a NOT_FOUND status if the token is unknown or expired.
+     */
+    @GetMapping("/queuestatus")
+    public ResponseEntity<?> getQueueStatus(@RequestParam String token) {
+        try {
+            QueueStatusDto status = waitingRoomService.getQueueStatus(token);
+            return new ResponseEntity<>(status, HttpStatus.OK);
+        } catch (EntityNotFoundException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        }
+    }
+
     /**
      * Processes the purchase of tickets for a user, including updating the user's balance.
+     * <p>
+     * Requests carrying an {@code Idempotency-Key} header are executed at most once per key. A retry with the same key
+     * waits for the original request if it is still running, and otherwise receives the original response.
+     * </p>
      *
      * @param purchaseTicketsDto The data transfer object containing purchase details, including user ID, coupon ID, and ticket requests.
+     * @param admissionToken     The admitted waiting room token, required while the waiting room is enabled.
+     * @param idempotencyKey     An optional client-generated key identifying this purchase across retries.
+     * @param principal          The user authenticated by the session token, if any.
      * @return A {@link ResponseEntity} with a success message if tickets are purchased successfully, or an error message with the appropriate HTTP status.
      */
     @PostMapping("/purchasetickets")
-    public ResponseEntity<String> createTickets(@RequestBody PurchaseTicketsDto purchaseTicketsDto) {
+    public ResponseEntity<String> createTickets(@RequestBody PurchaseTicketsDto purchaseTicketsDto,
+                                                @RequestHeader(value = "X-Admission-Token", required = false) String admissionToken,
+                                                @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                                @AuthenticationPrincipal SessionPrincipal principal) {
+        if (isOtherUser(principal, purchaseTicketsDto.userId())) {
+            return forbidden();
+        }
+        if (idempotencyKey == null) {
+            return purchaseTickets(purchaseTicketsDto, admissionToken);
+        }
+        return idempotencyService.execute(idempotencyKey, purchaseTicketsDto,
+                () -> purchaseTickets(purchaseTicketsDto, admissionToken));
+    }
+
+    // Helper Method
+    private ResponseEntity<String> purchaseTickets(PurchaseTicketsDto purchaseTicketsDto, String admissionToken) {
+        Set<Integer> eventIds = new HashSet<>();
+        if (purchaseTicketsDto.tickets() != null) {
+            purchaseTicketsDto.tickets().forEach(ticket -> eventIds.add(ticket.eventId()));
+        }
+        WaitingRoomService.Permit permit;
         try {
+            permit = waitingRoomService.enter(admissionToken, purchaseTicketsDto.userId(), eventIds);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.TOO_MANY_REQUESTS);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(e.getMessage());
+        }
+
+        try (permit) {
             ticketService.purchaseTickets(purchaseTicketsDto);
+            permit.complete();
             return new ResponseEntity<>("Tickets purchased successfully", HttpStatus.CREATED);
         } catch (EntityNotFoundException e) {
             return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
         } catch (Exception e) {
             return new ResponseEntity<>("An unexpected error occurred", HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
+
+    // Helper Method
+    private static boolean isOtherUser(SessionPrincipal principal, Integer userId) {
+        return principal != null && !principal.userId().equals(userId);
+    }
+
+    // Helper Method
+    private static ResponseEntity<String> forbidden() {
+        return new ResponseEntity<>("The session token belongs to a different user", HttpStatus.FORBIDDEN);
+    }
 }
@@ -1,17 +1,30 @@
 package com.concertfever.concertfever_backend.controller;
 
+import com.concertfever.concertfever_backend.dto.BulkImportResultDto;
 import com.concertfever.concertfever_backend.dto.ChangeUserPasswordDto;
 import com.concertfever.concertfever_backend.dto.EmailRequest;
+import com.concertfever.concertfever_backend.dto.LoginDto;
 import com.concertfever.concertfever_backend.dto.NewUserDto;
+import com.concertfever.concertfever_backend.service.SessionPrincipal;
+import com.concertfever.concertfever_backend.service.UserImportService;
 import com.concertfever.concertfever_backend.service.UserService;
-import jakarta.mail.MessagingException;
 import jakarta.persistence.EntityNotFoundException;
 import org.apache.coyote.BadRequestException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Controller for handling user-related HTTP requests.
@@ -19,20 +32,27 @@ import java.math.BigDecimal;
  * Provides endpoints for retrieving user details, updating account balance, managing user passwords,
  * creating new users, and handling forgotten passwords.
  * </p>
+ * <p>
+ * Endpoints acting on the caller's own account accept a session token from {@code /login}. With a token, the user is
+ * taken from the token and the {@code email} parameter may be omitted; an email belonging to someone else is refused.
+ * </p>
  */
 @RestController
 @RequestMapping("/user")
 public class UserController {
 
     private final UserService userService;
+    private final UserImportService userImportService;
 
     /**
      * Constructs an instance of {@link UserController}.
      *
-     * @param userService The service for handling user-related operations.
+     * @param userService       The service for handling user-related operations.
+     * @param userImportService The service importing users in bulk.
      */
-    public UserController(UserService userService) {
+    public UserController(UserService userService, UserImportService userImportService) {
         this.userService = userService;
+        this.userImportService = userImportService;
     }
 
     /**
@@ -63,19 +83,52 @@ public class UserController {
             return ResponseEntity.ok(userService.checkPassword(email, password));
         } catch (EntityNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (RejectedExecutionException e) {
+            return passwordServiceBusy(e);
+        }
+    }
+
+    /**
+     * Logs a user in and issues a session token.
+     * <p>
+     * The password is sent in the request body and verified once. The returned token is sent with later requests as
+     * {@code Authorization: Bearer <token>} until it expires.
+     * </p>
+     *
+     * @param loginDto The data transfer object containing the email and password.
+     * @return A {@link ResponseEntity} containing the session token, or an UNAUTHORIZED status if the credentials are wrong.
+     */
+    @PostMapping("/login")
+    public ResponseEntity<?> login(@RequestBody LoginDto loginDto) {
+        try {
+            return ResponseEntity.ok(userService.login(loginDto));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(e.getMessage());
+        } catch (RejectedExecutionException e) {
+            return passwordServiceBusy(e);
         }
     }
 
     /**
-     * Checks the account balance of a user identified by email.
+     * Checks the account balance of a user identified by email or by session token.
      *
-     * @param email The email of the user whose account balance is to be checked.
+     * @param email     The email of the user whose account balance is to be checked. Optional with a session token.
+     * @param principal The user authenticated by the session token, if any.
      * @return A {@link ResponseEntity} containing the user's account balance if found, or a NOT_FOUND status if the user is not found.
      */
     @GetMapping("/getuseraccountbalance")
-    public ResponseEntity<?> checkAccountBalance(@RequestParam("email") String email) {
+    public ResponseEntity<?> checkAccountBalance(@RequestParam(value = "email", required = false) String email,
+                                                 @AuthenticationPrincipal SessionPrincipal principal) {
+        if (isOtherUser(principal, email)) {
+            return forbidden();
+        }
+        if (principal == null && email == null) {
+            return emailRequired();
+        }
         try {
-            return ResponseEntity.ok(userService.checkAccountBalance(email));
+            return ResponseEntity.ok(principal != null
+                    ? userService.checkAccountBalanceByUserId(principal.userId())
+                    : userService.checkAccountBalance(email));
         } catch (EntityNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         }
@@ -88,14 +141,25 @@ public class UserController {
      * NOT_FOUND status is returned. If there is an issue with the request, a BAD_REQUEST status is returned.
      * </p>
      *
-     * @param email The email of the user whose account balance is to be updated.
-     * @param topUp The amount to add to the user's account balance.
+     * @param email     The email of the user whose account balance is to be updated. Optional with a session token.
+     * @param topUp     The amount to add to the user's account balance.
+     * @param principal The user authenticated by the session token, if any.
      * @return A {@link ResponseEntity} with a success message if the balance is updated successfully, or an error message with the appropriate HTTP status.
      */
     @PutMapping("/topupaccountbalance")
-    public ResponseEntity<String> updateAccountBalance(@RequestParam("email") String email, @RequestParam("topUp") BigDecimal topUp) {
+    public ResponseEntity<String> updateAccountBalance(@RequestParam(value = "email", required = false) String email,
+                                                       @RequestParam("topUp") BigDecimal topUp,
+                                                       @AuthenticationPrincipal SessionPrincipal principal) {
+        if (isOtherUser(principal, email)) {
+            return forbidden();
+        }
+        if (principal == null && email == null) {
+            return emailRequired();
+        }
         try {
-            return ResponseEntity.ok(userService.updateAccountBalance(email, topUp));
+            return ResponseEntity.ok(principal != null
+                    ? userService.updateAccountBalanceByUserId(principal.userId(), topUp)
+                    : userService.updateAccountBalance(email, topUp));
         } catch (EntityNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         } catch (RuntimeException e) {
@@ -121,19 +185,31 @@ public class UserController {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         } catch (BadRequestException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (RejectedExecutionException e) {
+            return passwordServiceBusy(e);
         }
     }
 
     /**
      * Updates the last login time for a user.
      *
-     * @param email The email of the user whose login time is to be updated.
+     * @param email     The email of the user whose login time is to be updated. Optional with a session token.
+     * @param principal The user authenticated by the session token, if any.
      * @return A {@link ResponseEntity} with a success message if the login time is updated successfully.
      */
     @PutMapping("/updateuserlogintime")
-    public ResponseEntity<String> updateUserLoginTime(@RequestParam("email") String email) {
+    public ResponseEntity<String> updateUserLoginTime(@RequestParam(value = "email", required = false) String email,
+                                                      @AuthenticationPrincipal SessionPrincipal principal) {
+        if (isOtherUser(principal, email)) {
+            return forbidden();
+        }
+        if (principal == null && email == null) {
+            return emailRequired();
+        }
         try {
-            return ResponseEntity.ok(userService.updateUserLoginTime(email));
+            return ResponseEntity.ok(principal != null
+                    ? userService.updateUserLoginTimeByUserId(principal.userId())
+                    : userService.updateUserLoginTime(email));
         } catch (EntityNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         }
@@ -155,26 +231,93 @@ public class UserController {
             return ResponseEntity.status(HttpStatus.CREATED).body(userService.createUser(userDto));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (RejectedExecutionException e) {
+            return passwordServiceBusy(e);
+        }
+    }
+
+    /**
+     * Imports a JSON array of users in bulk.
+     * <p>
+     * Every element has the same fields as for {@code /createnewuser}. Rows that cannot be imported, e.g. because the
+     * email already exists, are skipped and listed in the result; all other rows are imported.
+     * Only available to admins.
+     * </p>
+     *
+     * @param users The users to import.
+     * @return A {@link ResponseEntity} containing the import result, or a CONFLICT status if another import is running.
+     */
+    @PostMapping(value = "/bulkimport", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> bulkImportUsers(@RequestBody List<NewUserDto> users) {
+        try {
+            return ResponseEntity.ok(userImportService.importUsers(users));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Imports users from a CSV body in bulk. The body is read as a stream, so large files are not buffered.
+     * <p>
+     * The first line is a header with the columns {@code firstName}, {@code lastName}, {@code email}, {@code password}
+     * and optionally {@code accountBalance}. Rows that cannot be imported are skipped and listed in the result.
+     * Only available to admins.
+     * </p>
+     *
+     * @param csv The CSV request body, encoded in UTF-8.
+     * @return A {@link ResponseEntity} containing the import result, or an error message with the appropriate HTTP status.
+     */
+    @PostMapping(value = "/bulkimport", consumes = "text/csv")
+    public ResponseEntity<?> bulkImportUsersFromCsv(InputStream csv) {
+        try (Reader reader = new InputStreamReader(csv, StandardCharsets.UTF_8)) {
+            BulkImportResultDto result = userImportService.importCsv(reader);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException | IOException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         }
     }
 
     /**
      * Handles password reset requests.
      * <p>
-     * This method sends a password reset email to the specified address. If the user is not found,
-     * a NOT_FOUND status is returned. Messaging exceptions are propagated if there are issues with sending the email.
+     * This method queues a password reset email to the specified address, which is delivered in the background.
+     * If the user is not found, a NOT_FOUND status is returned.
      * </p>
      *
      * @param email The email of the user requesting a password reset.
-     * @return A {@link ResponseEntity} with a success message if the reset email is sent successfully.
-     * @throws MessagingException if there is an error while sending the password reset email.
+     * @return A {@link ResponseEntity} with a success message if the reset email is queued successfully.
      */
     @PutMapping("/forgot-password")
-    public ResponseEntity<String> forgotPassword(@RequestParam("email") String email) throws MessagingException {
+    public ResponseEntity<String> forgotPassword(@RequestParam("email") String email) {
         try {
             return ResponseEntity.ok(userService.forgotPassword(email));
         } catch (EntityNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (RejectedExecutionException e) {
+            return passwordServiceBusy(e);
         }
     }
+
+    // Helper Method
+    private static boolean isOtherUser(SessionPrincipal principal, String email) {
+        return principal != null && email != null && !principal.hasEmail(email);
+    }
+
+    // Helper Method
+    private static ResponseEntity<String> forbidden() {
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body("The session token belongs to a different user");
+    }
+
+    // Helper Method
+    private static ResponseEntity<String> emailRequired() {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Either a session token or an email is required");
+    }
+
+    // Helper Method
+    // Password hashing is saturated; the client should back off briefly rather than pile on
+    private static ResponseEntity<String> passwordServiceBusy(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(e.getMessage());
+    }
 }
@@ -0,0 +1,9 @@
+package com.concertfever.concertfever_backend.dto;
+
+import java.io.Serializable;
+
+/**
+ * DTO for a row of a bulk {@link com.concertfever.concertfever_backend.entities.User} import that was not imported
+ */
+public record BulkImportErrorDto(long row, String email, String error) implements Serializable {
+}
@@ -0,0 +1,10 @@
+package com.concertfever.concertfever_backend.dto;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * DTO for the outcome of a bulk {@link com.concertfever.concertfever_backend.entities.User} import
+ */
+public record BulkImportResultDto(long totalRows, long importedRows, long failedRows, List<BulkImportErrorDto> errors) implements Serializable {
+}
@@ -0,0 +1,18 @@
+package com.concertfever.concertfever_backend.dto;
+
+import com.concertfever.concertfever_backend.entities.Category;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Flat row of an event joined with its venue and one of its ticket categories, used to stream the catalog.
+ * The ticket category fields are {@code null} for events without ticket categories.
+ */
+public record EventCatalogRowDto(Integer eventId, String eventName, LocalDate startDate, LocalDate endDate,
+                                 String description, Category category,
+                                 Integer venueId, String venueName, Integer seatingCapacity, String address,
+                                 String country, String city, String pinCode,
+                                 Character ticketCategory, BigDecimal price, Integer totalQuantity,
+                                 Integer remainingQuantity) {
+}
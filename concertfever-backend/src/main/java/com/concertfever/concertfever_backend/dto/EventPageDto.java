@@ -0,0 +1,14 @@
+package com.concertfever.concertfever_backend.dto;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * A single page of events returned by the keyset-paginated event listing.
+ * The next page is requested by passing {@code nextStartDate} and {@code nextEventId} back as the cursor;
+ * both are {@code null} when there are no more events.
+ */
+public record EventPageDto(List<EventFullDetailsDto> events, LocalDate nextStartDate,
+                           Integer nextEventId) implements Serializable {
+}
@@ -0,0 +1,16 @@
+package com.concertfever.concertfever_backend.dto;
+
+import com.concertfever.concertfever_backend.entities.Category;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Lightweight DTO for {@link com.concertfever.concertfever_backend.entities.Event} used by list views.
+ * It leaves out the description so the {@code TEXT} column is never read for lists.
+ */
+public record EventSummaryDto(Integer eventId, String eventName, LocalDate startDate, LocalDate endDate,
+                              Category category, String venueName, String city,
+                              BigDecimal minPrice) implements Serializable {
+}
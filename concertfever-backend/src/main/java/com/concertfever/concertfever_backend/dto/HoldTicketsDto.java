@@ -0,0 +1,10 @@
+package com.concertfever.concertfever_backend.dto;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * DTO for a request to hold tickets for a {@link com.concertfever.concertfever_backend.entities.User}
+ */
+public record HoldTicketsDto(Integer userId, List<TicketHoldItemDto> items) implements Serializable {
+}
@@ -0,0 +1,9 @@
+package com.concertfever.concertfever_backend.dto;
+
+import java.io.Serializable;
+
+/**
+ * DTO for the credentials of a {@link com.concertfever.concertfever_backend.entities.User} logging in
+ */
+public record LoginDto(String email, String password) implements Serializable {
+}
@@ -3,6 +3,6 @@ package com.concertfever.concertfever_backend.dto;
 import java.io.Serializable;
 import java.util.List;
 
-public record PurchaseTicketsDto(Integer userId, Integer couponId, List<TicketRequestDto> tickets) implements Serializable {
+public record PurchaseTicketsDto(Integer userId, Integer couponId, List<TicketRequestDto> tickets, String holdId) implements Serializable {
 
 }
@@ -0,0 +1,11 @@
+package com.concertfever.concertfever_backend.dto;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * DTO for a buyer's place in the waiting room of an {@link com.concertfever.concertfever_backend.entities.Event}
+ */
+public record QueueStatusDto(String token, Integer eventId, Long position, Boolean admitted,
+                             LocalDateTime admittedUntil) implements Serializable {
+}
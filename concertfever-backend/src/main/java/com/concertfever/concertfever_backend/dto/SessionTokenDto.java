@@ -0,0 +1,10 @@
+package com.concertfever.concertfever_backend.dto;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * DTO for the signed session token issued to a logged in {@link com.concertfever.concertfever_backend.entities.User}
+ */
+public record SessionTokenDto(String token, Integer userId, LocalDateTime expiresAt) implements Serializable {
+}
@@ -0,0 +1,10 @@
+package com.concertfever.concertfever_backend.dto;
+
+import java.io.Serializable;
+
+/**
+ * DTO for the remaining quantity of a {@link com.concertfever.concertfever_backend.entities.TicketCategory}
+ */
+public record TicketAvailabilityDto(Integer eventId, Character ticketCategory,
+                                    Integer remainingQuantity) implements Serializable {
+}
@@ -0,0 +1,13 @@
+package com.concertfever.concertfever_backend.dto;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Compact, column-oriented availability of every ticket category of every event.
+ * Entry {@code i} of the three arrays describes one ticket category; {@code ticketCategories} is serialized
+ * as a single string with one character per entry.
+ */
+public record TicketAvailabilitySnapshotDto(LocalDateTime refreshedAt, int[] eventIds, char[] ticketCategories,
+                                            int[] remainingQuantities) implements Serializable {
+}
@@ -0,0 +1,10 @@
+package com.concertfever.concertfever_backend.dto;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * DTO for a time-limited hold on ticket inventory
+ */
+public record TicketHoldDto(String holdId, LocalDateTime expiresAt) implements Serializable {
+}
@@ -0,0 +1,9 @@
+package com.concertfever.concertfever_backend.dto;
+
+import java.io.Serializable;
+
+/**
+ * DTO for the quantity of a {@link com.concertfever.concertfever_backend.entities.TicketCategory} to hold
+ */
+public record TicketHoldItemDto(Integer eventId, Character ticketCategory, Integer quantity) implements Serializable {
+}
@@ -6,6 +6,8 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -14,6 +16,8 @@ import java.util.List;
 @Entity
 @Getter @Setter @NoArgsConstructor
 @Table(name = "discount_coupons", schema = "concertfever")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "discountCoupon")
 public class DiscountCoupon {
     @Id
     @Column(name = "coupon_id", nullable = false)
@@ -0,0 +1,68 @@
+package com.concertfever.concertfever_backend.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Getter @Setter @NoArgsConstructor
+@Table(name = "email_outbox", schema = "concertfever")
+public class EmailOutbox {
+    @Id
+    @Column(name = "outbox_id", nullable = false)
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long outboxId;
+
+    @Column(name = "recipient", nullable = false, length = 100)
+    private String recipient;
+
+    @Column(name = "subject", nullable = false)
+    private String subject;
+
+    @Column(name = "html_body", nullable = false, columnDefinition = "MEDIUMTEXT")
+    private String htmlBody;
+
+    @Column(name = "sensitive", nullable = false)
+    private Boolean sensitive;
+
+    @Column(name = "status", nullable = false, length = 10)
+    @Enumerated(EnumType.STRING)
+    private EmailOutboxStatus status;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    public EmailOutbox(String recipient, String subject, String htmlBody, LocalDateTime createdAt) {
+        this(recipient, subject, htmlBody, false, createdAt);
+    }
+
+    public EmailOutbox(String recipient, String subject, String htmlBody, boolean sensitive, LocalDateTime createdAt) {
+        this.recipient = recipient;
+        this.subject = subject;
+        this.htmlBody = htmlBody;
+        this.sensitive = sensitive;
+        this.status = EmailOutboxStatus.PENDING;
+        this.attempts = 0;
+        this.nextAttemptAt = createdAt;
+        this.createdAt = createdAt;
+    }
+
+}
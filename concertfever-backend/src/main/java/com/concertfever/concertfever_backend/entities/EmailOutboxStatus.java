@@ -0,0 +1,8 @@
+package com.concertfever.concertfever_backend.entities;
+
+public enum EmailOutboxStatus {
+    PENDING,
+    SENDING,
+    SENT,
+    FAILED
+}
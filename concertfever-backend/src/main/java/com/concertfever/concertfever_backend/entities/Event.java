@@ -6,6 +6,8 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDate;
@@ -14,6 +16,9 @@ import java.util.List;
 @Entity
 @Getter @Setter  @NoArgsConstructor
 @Table(name = "events", schema = "concertfever")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "event")
+@EntityListeners(EventChangeListener.class)
 public class Event {
     @Id
     @Column(name = "event_id", nullable = false)
@@ -25,7 +30,7 @@ public class Event {
     @JoinColumn(name = "venue_id", nullable = false)
     private Venue venue;
 
-    @ManyToOne(fetch = FetchType.EAGER, optional = false, cascade = {CascadeType.PERSIST, CascadeType.MERGE, CascadeType.DETACH, CascadeType.REFRESH})
+    @ManyToOne(fetch = FetchType.LAZY, optional = false, cascade = {CascadeType.PERSIST, CascadeType.MERGE, CascadeType.DETACH, CascadeType.REFRESH}) // was EAGER
     @JsonManagedReference // Manage serialization
     @JoinColumn(name = "organiser_user_id", nullable = false)
     private User organiserUser;
@@ -0,0 +1,33 @@
+package com.concertfever.concertfever_backend.entities;
+
+import com.concertfever.concertfever_backend.service.EventChangedEvent;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA entity listener announcing changes to {@link Event} rows as {@link EventChangedEvent}s,
+ * so in-memory structures derived from events (such as the search index) can be kept up to date.
+ */
+@Component
+public class EventChangeListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public EventChangeListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSaved(Event event) {
+        eventPublisher.publishEvent(new EventChangedEvent(event.getEventId(), false));
+    }
+
+    @PostRemove
+    public void onRemoved(Event event) {
+        eventPublisher.publishEvent(new EventChangedEvent(event.getEventId(), true));
+    }
+}
@@ -0,0 +1,34 @@
+package com.concertfever.concertfever_backend.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Getter @Setter @NoArgsConstructor
+@Table(name = "idempotency_key", schema = "concertfever")
+public class IdempotencyKey {
+    @Id
+    @Column(name = "idempotency_key", nullable = false, length = 100)
+    private String idempotencyKey;
+
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    // Null while the first request with this key is still being processed
+    @Column(name = "status_code")
+    private Integer statusCode;
+
+    @Column(name = "response_body", length = 1000)
+    private String responseBody;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+}
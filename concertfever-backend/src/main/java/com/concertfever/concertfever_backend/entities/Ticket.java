@@ -15,7 +15,9 @@ import java.time.LocalDate;
 public class Ticket {
     @Id
     @Column(name = "ticket_id", nullable = false)
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence instead of IDENTITY, so Hibernate can batch ticket inserts
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ticket_seq")
+    @SequenceGenerator(name = "ticket_seq", sequenceName = "ticket_seq", schema = "concertfever", allocationSize = 50)
     private Integer ticketId;
 
     @ManyToOne(fetch = FetchType.LAZY)
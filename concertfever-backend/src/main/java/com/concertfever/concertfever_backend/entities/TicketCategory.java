@@ -11,6 +11,8 @@ import java.math.BigDecimal;
 @Entity
 @Getter @Setter @NoArgsConstructor
 @Table(name = "ticket_category", schema = "concertfever")
+// Not in the second-level cache: remaining quantities change with every purchase, and each bulk update
+// would invalidate the whole region and every query over it
 public class TicketCategory {
     @EmbeddedId
     private TicketCategoryId ticketCategoryId;
@@ -0,0 +1,38 @@
+package com.concertfever.concertfever_backend.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// One row per ticket category of a hold. The held quantity is already deducted from the category's remaining quantity
+@Entity
+@Getter @Setter @NoArgsConstructor
+@Table(name = "ticket_hold", schema = "concertfever")
+public class TicketHold {
+    @EmbeddedId
+    private TicketHoldId ticketHoldId;
+
+    @Column(name = "user_id", nullable = false)
+    private Integer userId;
+
+    @Column(name = "quantity", nullable = false)
+    private Integer quantity;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public TicketHold(TicketHoldId ticketHoldId, Integer userId, Integer quantity, LocalDateTime expiresAt) {
+        this.ticketHoldId = ticketHoldId;
+        this.userId = userId;
+        this.quantity = quantity;
+        this.expiresAt = expiresAt;
+    }
+
+    public TicketCategoryId getTicketCategoryId() {
+        return new TicketCategoryId(ticketHoldId.getEventId(), ticketHoldId.getTicketCategory());
+    }
+
+}
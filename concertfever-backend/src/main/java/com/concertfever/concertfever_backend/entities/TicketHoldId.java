@@ -0,0 +1,52 @@
+package com.concertfever.concertfever_backend.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.Hibernate;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Objects;
+
+@Setter
+@Getter
+@Embeddable
+public class TicketHoldId implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 4127785093370584271L;
+    @Column(name = "hold_id", nullable = false, length = 36)
+    private String holdId;
+
+    @Column(name = "event_id", nullable = false)
+    private Integer eventId;
+
+    @Column(name = "ticket_category", nullable = false)
+    private Character ticketCategory;
+
+    public TicketHoldId() {
+    }
+
+    public TicketHoldId(String holdId, Integer eventId, Character ticketCategory) {
+        this.holdId = holdId;
+        this.eventId = eventId;
+        this.ticketCategory = ticketCategory;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || Hibernate.getClass(this) != Hibernate.getClass(o)) return false;
+        TicketHoldId entity = (TicketHoldId) o;
+        return Objects.equals(this.holdId, entity.holdId) &&
+                Objects.equals(this.eventId, entity.eventId) &&
+                Objects.equals(this.ticketCategory, entity.ticketCategory);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(holdId, eventId, ticketCategory);
+    }
+
+}
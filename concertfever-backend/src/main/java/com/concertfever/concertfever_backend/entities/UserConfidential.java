@@ -5,6 +5,7 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -12,6 +13,8 @@ import java.time.LocalDate;
 @Setter
 @Getter
 @Entity
+// Updates only write the changed columns, so they do not overwrite the last login date written behind by LastLoginBuffer
+@DynamicUpdate
 @NoArgsConstructor
 @Table(name = "user_confidential", schema = "concertfever")
 public class UserConfidential {
@@ -20,7 +23,7 @@ public class UserConfidential {
     private Integer userId;
 
     @MapsId
-    @OneToOne(fetch = FetchType.EAGER, optional = false)
+    @OneToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "user_id", nullable = false)
     @JsonBackReference // Manage serialization
     private User user;
@@ -40,6 +43,11 @@ public class UserConfidential {
     @Column(name = "account_balance", nullable = false, precision = 10, scale = 2)
     private BigDecimal accountBalance;
 
+    // Also incremented by the atomic balance updates in UserConfidentialRepository
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     public UserConfidential(User user, LocalDate idCreatedAt, LocalDate idLastLogin, String password, LocalDate passwordLastChangedAt, BigDecimal accountBalance) {
         this.user = user;
         this.idCreatedAt = idCreatedAt;
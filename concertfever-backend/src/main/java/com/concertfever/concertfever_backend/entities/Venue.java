@@ -5,6 +5,8 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.List;
 
@@ -13,6 +15,8 @@ import java.util.List;
 @Entity
 @NoArgsConstructor
 @Table(name = "venue", schema = "concertfever")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "venue")
 public class Venue {
     @Id
     @Column(name = "venue_id", nullable = false)
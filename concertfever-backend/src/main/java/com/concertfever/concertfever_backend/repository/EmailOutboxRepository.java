@@ -0,0 +1,37 @@
+package com.concertfever.concertfever_backend.repository;
+
+import com.concertfever.concertfever_backend.entities.EmailOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+        // Rows locked by another dispatcher are skipped rather than waited for
+        @Query(value = "SELECT * FROM email_outbox WHERE status = 'PENDING' AND next_attempt_at <= :now ORDER BY next_attempt_at, outbox_id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+        List<EmailOutbox> lockDueBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+        @Modifying
+        @Query("UPDATE EmailOutbox o SET o.status = com.concertfever.concertfever_backend.entities.EmailOutboxStatus.SENT, o.sentAt = :sentAt, o.claimedAt = NULL WHERE o.outboxId IN :outboxIds")
+        int markSent(@Param("outboxIds") Collection<Long> outboxIds, @Param("sentAt") LocalDateTime sentAt);
+
+        // Secrets such as temporary passwords are only kept until the email has been delivered
+        @Modifying
+        @Query("UPDATE EmailOutbox o SET o.htmlBody = '' WHERE o.outboxId IN :outboxIds AND o.sensitive = true")
+        int redactSensitive(@Param("outboxIds") Collection<Long> outboxIds);
+
+        @Modifying
+        @Query("UPDATE EmailOutbox o SET o.status = com.concertfever.concertfever_backend.entities.EmailOutboxStatus.PENDING, o.claimedAt = NULL WHERE o.status = com.concertfever.concertfever_backend.entities.EmailOutboxStatus.SENDING AND o.claimedAt < :claimedBefore")
+        int reclaimStale(@Param("claimedBefore") LocalDateTime claimedBefore);
+
+        @Modifying
+        @Query(value = "DELETE FROM email_outbox WHERE (status = 'SENT' AND sent_at < :before) OR (status = 'FAILED' AND created_at < :before)", nativeQuery = true)
+        int deleteFinishedBefore(@Param("before") LocalDateTime before);
+}
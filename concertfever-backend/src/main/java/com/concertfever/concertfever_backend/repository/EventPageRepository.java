@@ -0,0 +1,28 @@
+package com.concertfever.concertfever_backend.repository;
+
+import com.concertfever.concertfever_backend.entities.Category;
+import com.concertfever.concertfever_backend.entities.Event;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Custom fragment of {@link EventRepository} for the filtered, keyset-paginated event listing.
+ */
+public interface EventPageRepository {
+
+    /**
+     * Retrieves a page of events ordered by start date and ID, together with their venues.
+     *
+     * @param category       The category to filter by, or {@code null} for all categories.
+     * @param fromDate       The earliest start date, or {@code null}.
+     * @param toDate         The latest start date, or {@code null}.
+     * @param city           The venue city to filter by, or {@code null} for all cities.
+     * @param afterStartDate The start date of the last event of the previous page, or {@code null} for the first page.
+     * @param afterEventId   The ID of the last event of the previous page. Required with {@code afterStartDate}.
+     * @param limit          The maximum number of events to return.
+     * @return The events of the page.
+     */
+    List<Event> findEventPage(Category category, LocalDate fromDate, LocalDate toDate, String city,
+                              LocalDate afterStartDate, Integer afterEventId, int limit);
+}
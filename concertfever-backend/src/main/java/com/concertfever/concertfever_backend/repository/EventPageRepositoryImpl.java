@@ -0,0 +1,75 @@
+package com.concertfever.concertfever_backend.repository;
+
+import com.concertfever.concertfever_backend.entities.Category;
+import com.concertfever.concertfever_backend.entities.Event;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the event page query from the filters actually given.
+ * <p>
+ * A single query with {@code :param IS NULL OR ...} for every optional filter gets one generic plan, which cannot
+ * use the category index. Leaving absent filters out of the query lets every combination use the best index. The
+ * cursor condition leads with {@code start_date >= :afterStartDate}, so it is a range scan on the
+ * {@code (start_date, event_id)} and {@code (category, start_date, event_id)} indexes, unlike an {@code OR} of
+ * the two columns.
+ * </p>
+ */
+public class EventPageRepositoryImpl implements EventPageRepository {
+
+    private final EntityManager entityManager;
+
+    /**
+     * Constructs an instance of {@link EventPageRepositoryImpl}.
+     *
+     * @param entityManager The entity manager the query runs on.
+     */
+    public EventPageRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<Event> findEventPage(Category category, LocalDate fromDate, LocalDate toDate, String city,
+                                     LocalDate afterStartDate, Integer afterEventId, int limit) {
+        List<String> conditions = new ArrayList<>();
+        Map<String, Object> parameters = new HashMap<>();
+        if (category != null) {
+            conditions.add("e.category = :category");
+            parameters.put("category", category);
+        }
+        if (fromDate != null) {
+            conditions.add("e.startDate >= :fromDate");
+            parameters.put("fromDate", fromDate);
+        }
+        if (toDate != null) {
+            conditions.add("e.startDate <= :toDate");
+            parameters.put("toDate", toDate);
+        }
+        if (city != null) {
+            conditions.add("v.city = :city");
+            parameters.put("city", city);
+        }
+        if (afterStartDate != null) {
+            conditions.add("e.startDate >= :afterStartDate");
+            conditions.add("(e.startDate > :afterStartDate OR e.eventId > :afterEventId)");
+            parameters.put("afterStartDate", afterStartDate);
+            parameters.put("afterEventId", afterEventId);
+        }
+
+        StringBuilder jpql = new StringBuilder("SELECT e FROM Event e JOIN FETCH e.venue v");
+        if (!conditions.isEmpty()) {
+            jpql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        jpql.append(" ORDER BY e.startDate, e.eventId");
+
+        TypedQuery<Event> query = entityManager.createQuery(jpql.toString(), Event.class);
+        parameters.forEach(query::setParameter);
+        return query.setMaxResults(limit).getResultList();
+    }
+}
@@ -1,14 +1,60 @@
 package com.concertfever.concertfever_backend.repository;
 
+import com.concertfever.concertfever_backend.dto.EventCatalogRowDto;
+import com.concertfever.concertfever_backend.dto.EventSummaryDto;
 import com.concertfever.concertfever_backend.entities.Category;
 import com.concertfever.concertfever_backend.entities.Event;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface EventRepository extends JpaRepository<Event, Integer> {
+public interface EventRepository extends JpaRepository<Event, Integer>, EventPageRepository {
 
     List<Event> findEventByCategory(Category category);
-}
\ No newline at end of file
+
+    // Loads every event together with its venue in a single query, ordered the same way the
+    // per-category loop used to return them
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @EntityGraph(attributePaths = {"venue"})
+    @Query("SELECT e FROM Event e ORDER BY e.category, e.eventId")
+    List<Event> findAllWithVenue();
+
+    @EntityGraph(attributePaths = {"venue"})
+    @Query("SELECT e FROM Event e WHERE e.category = :category ORDER BY e.eventId")
+    List<Event> findAllWithVenueByCategory(@Param("category") Category category);
+
+    @Query("SELECT new com.concertfever.concertfever_backend.dto.EventSummaryDto(e.eventId, e.eventName, e.startDate, e.endDate, e.category, v.venueName, v.city, MIN(tc.price)) " +
+            "FROM Event e JOIN e.venue v LEFT JOIN e.ticketCategories tc " +
+            "GROUP BY e.eventId, e.eventName, e.startDate, e.endDate, e.category, v.venueName, v.city " +
+            "ORDER BY e.category, e.eventId")
+    List<EventSummaryDto> findAllSummaries();
+
+    @Query("SELECT new com.concertfever.concertfever_backend.dto.EventSummaryDto(e.eventId, e.eventName, e.startDate, e.endDate, e.category, v.venueName, v.city, MIN(tc.price)) " +
+            "FROM Event e JOIN e.venue v LEFT JOIN e.ticketCategories tc WHERE e.category = :category " +
+            "GROUP BY e.eventId, e.eventName, e.startDate, e.endDate, e.category, v.venueName, v.city " +
+            "ORDER BY e.eventId")
+    List<EventSummaryDto> findSummariesByCategory(@Param("category") Category category);
+
+    // Streams the whole catalog as flat rows, grouped by event, without loading entities into the persistence context
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.concertfever.concertfever_backend.dto.EventCatalogRowDto(e.eventId, e.eventName, e.startDate, e.endDate, e.description, e.category, " +
+            "v.venueId, v.venueName, v.seatingCapacity, v.address, v.country, v.city, v.pinCode, " +
+            "tc.ticketCategoryId.ticketCategory, tc.price, tc.totalQuantity, tc.remainingQuantity) " +
+            "FROM Event e JOIN e.venue v LEFT JOIN e.ticketCategories tc " +
+            "ORDER BY e.category, e.eventId, tc.ticketCategoryId.ticketCategory")
+    Stream<EventCatalogRowDto> streamCatalogRows();
+
+    @EntityGraph(attributePaths = {"venue"})
+    @Query("SELECT e FROM Event e WHERE e.eventId IN :eventIds")
+    List<Event> findAllWithVenueByEventIds(@Param("eventIds") Collection<Integer> eventIds);
+}
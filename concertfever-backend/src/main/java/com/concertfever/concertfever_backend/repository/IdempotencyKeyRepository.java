@@ -0,0 +1,47 @@
+package com.concertfever.concertfever_backend.repository;
+
+import com.concertfever.concertfever_backend.entities.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+
+        // Claims the key; returns 0 if another request already did
+        @Transactional
+        @Modifying
+        @Query(value = "INSERT IGNORE INTO idempotency_key (idempotency_key, request_hash, created_at, expires_at) VALUES (:idempotencyKey, :requestHash, :createdAt, :expiresAt)", nativeQuery = true)
+        int insertIfAbsent(@Param("idempotencyKey") String idempotencyKey, @Param("requestHash") String requestHash,
+                           @Param("createdAt") LocalDateTime createdAt, @Param("expiresAt") LocalDateTime expiresAt);
+
+        // Takes over a key whose claim was abandoned (no response within the lease) or that has expired; returns 0 otherwise
+        @Transactional
+        @Modifying
+        @Query(value = "UPDATE idempotency_key SET request_hash = :requestHash, status_code = NULL, response_body = NULL, created_at = :createdAt, expires_at = :expiresAt WHERE idempotency_key = :idempotencyKey AND ((status_code IS NULL AND created_at < :leaseExpiredBefore) OR expires_at < :createdAt)", nativeQuery = true)
+        int takeOverIfStale(@Param("idempotencyKey") String idempotencyKey, @Param("requestHash") String requestHash,
+                            @Param("createdAt") LocalDateTime createdAt, @Param("expiresAt") LocalDateTime expiresAt,
+                            @Param("leaseExpiredBefore") LocalDateTime leaseExpiredBefore);
+
+        // The claim time identifies the claim, so a request whose claim was taken over cannot touch the new one
+        @Transactional
+        @Modifying
+        @Query("UPDATE IdempotencyKey k SET k.statusCode = :statusCode, k.responseBody = :responseBody WHERE k.idempotencyKey = :idempotencyKey AND k.createdAt = :claimedAt")
+        int saveResponse(@Param("idempotencyKey") String idempotencyKey, @Param("claimedAt") LocalDateTime claimedAt,
+                         @Param("statusCode") Integer statusCode, @Param("responseBody") String responseBody);
+
+        @Transactional
+        @Modifying
+        @Query("DELETE FROM IdempotencyKey k WHERE k.idempotencyKey = :idempotencyKey AND k.createdAt = :claimedAt")
+        int release(@Param("idempotencyKey") String idempotencyKey, @Param("claimedAt") LocalDateTime claimedAt);
+
+        @Transactional
+        @Modifying
+        @Query("DELETE FROM IdempotencyKey k WHERE k.expiresAt < :now")
+        int deleteExpired(@Param("now") LocalDateTime now);
+}
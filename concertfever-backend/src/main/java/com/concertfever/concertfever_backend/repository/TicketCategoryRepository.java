@@ -1,13 +1,17 @@
 package com.concertfever.concertfever_backend.repository;
 
+import com.concertfever.concertfever_backend.dto.TicketAvailabilityDto;
 import com.concertfever.concertfever_backend.dto.TicketCategoryDto;
+import com.concertfever.concertfever_backend.entities.Category;
 import com.concertfever.concertfever_backend.entities.TicketCategory;
 import com.concertfever.concertfever_backend.entities.TicketCategoryId;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -15,4 +19,31 @@ public interface TicketCategoryRepository extends JpaRepository<TicketCategory,
 
         @Query("SELECT new com.concertfever.concertfever_backend.dto.TicketCategoryDto(tc.ticketCategoryId.ticketCategory, tc.price, tc.totalQuantity, tc.remainingQuantity) FROM TicketCategory tc WHERE tc.eventId.eventId = :eventId")
         List<TicketCategoryDto> findTicketCategoriesByEventId(@Param("eventId") Integer eventId);
-}
\ No newline at end of file
+
+        @Query("SELECT tc FROM TicketCategory tc ORDER BY tc.ticketCategoryId.eventId, tc.ticketCategoryId.ticketCategory")
+        List<TicketCategory> findAllOrdered();
+
+        @Query("SELECT tc FROM TicketCategory tc WHERE tc.eventId.category = :category ORDER BY tc.ticketCategoryId.eventId, tc.ticketCategoryId.ticketCategory")
+        List<TicketCategory> findAllByEventCategory(@Param("category") Category category);
+
+        @Query("SELECT new com.concertfever.concertfever_backend.dto.TicketAvailabilityDto(tc.ticketCategoryId.eventId, tc.ticketCategoryId.ticketCategory, tc.remainingQuantity) FROM TicketCategory tc ORDER BY tc.ticketCategoryId.eventId, tc.ticketCategoryId.ticketCategory")
+        List<TicketAvailabilityDto> findAllAvailability();
+
+        @Query("SELECT tc FROM TicketCategory tc WHERE tc.ticketCategoryId.eventId IN :eventIds ORDER BY tc.ticketCategoryId.eventId, tc.ticketCategoryId.ticketCategory")
+        List<TicketCategory> findAllByEventIds(@Param("eventIds") Collection<Integer> eventIds);
+
+        // Guarded conditional decrement: only succeeds (returns 1) if enough tickets remain, so no read-modify-write is needed
+        @Modifying
+        @Query("UPDATE TicketCategory tc SET tc.remainingQuantity = tc.remainingQuantity - :quantity " +
+                "WHERE tc.ticketCategoryId.eventId = :eventId AND tc.ticketCategoryId.ticketCategory = :ticketCategory " +
+                "AND tc.remainingQuantity >= :quantity")
+        int decrementRemainingQuantity(@Param("eventId") Integer eventId, @Param("ticketCategory") Character ticketCategory,
+                                       @Param("quantity") int quantity);
+
+        @Modifying
+        @Query("UPDATE TicketCategory tc SET tc.remainingQuantity = tc.remainingQuantity + :quantity " +
+                "WHERE tc.ticketCategoryId.eventId = :eventId AND tc.ticketCategoryId.ticketCategory = :ticketCategory " +
+                "AND tc.remainingQuantity + :quantity <= tc.totalQuantity")
+        int incrementRemainingQuantity(@Param("eventId") Integer eventId, @Param("ticketCategory") Character ticketCategory,
+                                       @Param("quantity") int quantity);
+}
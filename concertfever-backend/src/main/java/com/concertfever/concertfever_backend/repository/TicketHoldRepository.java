@@ -0,0 +1,40 @@
+package com.concertfever.concertfever_backend.repository;
+
+import com.concertfever.concertfever_backend.entities.TicketHold;
+import com.concertfever.concertfever_backend.entities.TicketHoldId;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TicketHoldRepository extends JpaRepository<TicketHold, TicketHoldId> {
+
+        // Locks every row of a hold, so it is purchased, released or expired exactly once
+        @Lock(LockModeType.PESSIMISTIC_WRITE)
+        @Query("SELECT h FROM TicketHold h WHERE h.ticketHoldId.holdId = :holdId")
+        List<TicketHold> lockByHoldId(@Param("holdId") String holdId);
+
+        // Locked in primary key order, so concurrent expiry batches cannot deadlock each other
+        @Lock(LockModeType.PESSIMISTIC_WRITE)
+        @Query("SELECT h FROM TicketHold h WHERE h.ticketHoldId.holdId IN :holdIds ORDER BY h.ticketHoldId.holdId, h.ticketHoldId.eventId, h.ticketHoldId.ticketCategory")
+        List<TicketHold> lockByHoldIds(@Param("holdIds") Collection<String> holdIds);
+
+        @Modifying
+        @Query("DELETE FROM TicketHold h WHERE h.ticketHoldId.holdId IN :holdIds")
+        int deleteByHoldIds(@Param("holdIds") Collection<String> holdIds);
+
+        // One row per hold with its deadline, to rebuild the expiry wheel on startup
+        @Query("SELECT h.ticketHoldId.holdId, MIN(h.expiresAt) FROM TicketHold h GROUP BY h.ticketHoldId.holdId")
+        List<Object[]> findHoldDeadlines();
+
+        @Query("SELECT COUNT(DISTINCT h.ticketHoldId.holdId) FROM TicketHold h WHERE h.userId = :userId AND h.expiresAt > :now")
+        long countActiveHoldsByUserId(@Param("userId") Integer userId, @Param("now") LocalDateTime now);
+}
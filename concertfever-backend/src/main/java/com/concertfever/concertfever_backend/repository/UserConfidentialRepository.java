@@ -2,8 +2,35 @@ package com.concertfever.concertfever_backend.repository;
 
 import com.concertfever.concertfever_backend.entities.UserConfidential;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Optional;
+
 @Repository
 public interface UserConfidentialRepository extends JpaRepository<UserConfidential, Integer> {
-}
\ No newline at end of file
+
+        // Returns 0 if the balance is less than the amount
+        @Modifying
+        @Query("UPDATE UserConfidential uc SET uc.accountBalance = uc.accountBalance - :amount, uc.version = uc.version + 1 WHERE uc.userId = :userId AND uc.accountBalance >= :amount")
+        int debitAccountBalance(@Param("userId") Integer userId, @Param("amount") BigDecimal amount);
+
+        // Returns 0 if the balance would become negative
+        @Modifying
+        @Query("UPDATE UserConfidential uc SET uc.accountBalance = uc.accountBalance + :amount, uc.version = uc.version + 1 WHERE uc.userId = :userId AND uc.accountBalance + :amount >= 0")
+        int creditAccountBalance(@Param("userId") Integer userId, @Param("amount") BigDecimal amount);
+
+        // Keeps the atomic balance updates from bumping the version until the current transaction ends
+        @Query(value = "SELECT user_id FROM user_confidential WHERE user_id = :userId FOR UPDATE", nativeQuery = true)
+        Integer lockUserId(@Param("userId") Integer userId);
+
+        @Query("SELECT uc.accountBalance FROM UserConfidential uc WHERE uc.userId = :userId")
+        BigDecimal findAccountBalanceByUserId(@Param("userId") Integer userId);
+
+        // Loads the user together with their confidential data in one query
+        @Query("SELECT uc FROM UserConfidential uc JOIN FETCH uc.user u WHERE u.email = :email")
+        Optional<UserConfidential> findWithUserByEmail(@Param("email") String email);
+}
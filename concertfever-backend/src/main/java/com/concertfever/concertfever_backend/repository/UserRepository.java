@@ -2,6 +2,8 @@ package com.concertfever.concertfever_backend.repository;
 
 import com.concertfever.concertfever_backend.entities.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -9,4 +11,12 @@ public interface UserRepository extends JpaRepository<User, Integer> {
 
     User findByEmail(String email);
 
+    // Reads the ID from the unique email index only, without loading the user
+    @Query("SELECT u.userId FROM User u WHERE u.email = :email")
+    Integer findUserIdByEmail(@Param("email") String email);
+
+    // Serializes operations on one user's account, e.g. checking and creating their ticket holds
+    @Query(value = "SELECT user_id FROM user WHERE user_id = :userId FOR UPDATE", nativeQuery = true)
+    Integer lockUserId(@Param("userId") Integer userId);
+
 }
\ No newline at end of file
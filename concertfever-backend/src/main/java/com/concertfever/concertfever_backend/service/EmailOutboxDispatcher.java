@@ -0,0 +1,194 @@
+package com.concertfever.concertfever_backend.service;
+
+import com.concertfever.concertfever_backend.config.AsyncConfig;
+import com.concertfever.concertfever_backend.entities.EmailOutbox;
+import com.concertfever.concertfever_backend.entities.EmailOutboxStatus;
+import com.concertfever.concertfever_backend.repository.EmailOutboxRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Background dispatcher delivering the emails queued in the {@code email_outbox} table.
+ * <p>
+ * Due rows are claimed in batches with {@code SELECT ... FOR UPDATE SKIP LOCKED} and marked as sending in a short
+ * transaction, so several dispatchers (threads or application instances) never pick up the same email and never
+ * wait for each other. The emails are then sent outside of any transaction. Delivered rows are marked as sent with
+ * one update per batch; failed rows are rescheduled with exponential backoff until they run out of attempts.
+ * Rows left in the sending state by a crashed dispatcher are reclaimed after a timeout, so queued mail survives
+ * restarts.
+ * </p>
+ * <p>
+ * The body of a sensitive email is blanked as soon as it has been delivered or given up on, and sent as well as
+ * failed emails are deleted after the retention period.
+ * </p>
+ */
+@Service
+public class EmailOutboxDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailOutboxDispatcher.class);
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final EmailService emailService;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor emailExecutor;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long retryBackoffMs;
+    private final long maxBackoffMs;
+    private final long claimTimeoutMs;
+    private final int retentionDays;
+
+    // Coalesces dispatch requests, so at most one dispatch is waiting for the executor
+    private final AtomicBoolean dispatchRequested = new AtomicBoolean();
+
+    /**
+     * Constructs an instance of {@link EmailOutboxDispatcher}.
+     *
+     * @param emailOutboxRepository The repository for accessing the email outbox.
+     * @param emailService          The service used to send the emails.
+     * @param transactionTemplate   The template used to claim and mark rows in short transactions.
+     * @param emailExecutor         The bounded executor the dispatch runs on.
+     * @param batchSize             The maximum number of emails claimed at once.
+     * @param maxAttempts           The number of attempts after which an email is marked as failed.
+     * @param retryBackoffMs        The delay before the first retry. It doubles with every further attempt.
+     * @param maxBackoffMs          The maximum delay between two attempts.
+     * @param claimTimeoutMs        How long an email may stay claimed before it is considered abandoned.
+     * @param retentionDays         How long sent and failed emails are kept in the outbox.
+     */
+    public EmailOutboxDispatcher(EmailOutboxRepository emailOutboxRepository, EmailService emailService, TransactionTemplate transactionTemplate,
+                                 @Qualifier(AsyncConfig.EMAIL_EXECUTOR) TaskExecutor emailExecutor,
+                                 @Value("${concertfever.email.outbox.batch-size:50}") int batchSize,
+                                 @Value("${concertfever.email.max-attempts:8}") int maxAttempts,
+                                 @Value("${concertfever.email.retry-backoff-ms:1000}") long retryBackoffMs,
+                                 @Value("${concertfever.email.max-backoff-ms:600000}") long maxBackoffMs,
+                                 @Value("${concertfever.email.outbox.claim-timeout-ms:300000}") long claimTimeoutMs,
+                                 @Value("${concertfever.email.outbox.retention-days:7}") int retentionDays) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.emailService = emailService;
+        this.transactionTemplate = transactionTemplate;
+        this.emailExecutor = emailExecutor;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoffMs = retryBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.claimTimeoutMs = claimTimeoutMs;
+        this.retentionDays = retentionDays;
+    }
+
+    /**
+     * Starts a dispatch as soon as a queued email has been committed, instead of waiting for the next poll.
+     *
+     * @param emailQueuedEvent The event announcing the queued email.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmailQueued(EmailQueuedEvent emailQueuedEvent) {
+        requestDispatch();
+    }
+
+    /**
+     * Periodically picks up retries that have become due and emails queued while no dispatch was running.
+     */
+    @Scheduled(fixedDelayString = "${concertfever.email.outbox.poll-interval-ms:2000}")
+    public void poll() {
+        requestDispatch();
+    }
+
+    /**
+     * Reclaims abandoned claims and deletes sent and failed emails past their retention period.
+     */
+    @Scheduled(fixedDelayString = "${concertfever.email.outbox.housekeeping-interval-ms:60000}")
+    public void housekeeping() {
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            int reclaimed = emailOutboxRepository.reclaimStale(now.minusNanos(claimTimeoutMs * 1_000_000));
+            if (reclaimed > 0) {
+                logger.warn("Reclaimed {} abandoned outbox emails", reclaimed);
+            }
+            emailOutboxRepository.deleteFinishedBefore(now.minusDays(retentionDays));
+        });
+    }
+
+    /**
+     * Sends due emails batch by batch until the outbox has no more due rows.
+     */
+    public void dispatch() {
+        dispatchRequested.set(false);
+        List<EmailOutbox> batch;
+        do {
+            batch = claimBatch();
+            List<Long> sentIds = new ArrayList<>(batch.size());
+            for (EmailOutbox email : batch) {
+                try {
+                    emailService.sendHtmlMessage(email.getRecipient(), email.getSubject(), email.getHtmlBody());
+                    sentIds.add(email.getOutboxId());
+                } catch (Exception e) {
+                    recordFailure(email, e);
+                }
+            }
+            if (!sentIds.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> {
+                    emailOutboxRepository.markSent(sentIds, LocalDateTime.now());
+                    emailOutboxRepository.redactSensitive(sentIds);
+                });
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    // Helper Method
+    private void requestDispatch() {
+        if (dispatchRequested.compareAndSet(false, true)) {
+            emailExecutor.execute(this::dispatch);
+        }
+    }
+
+    // Helper Method
+    private List<EmailOutbox> claimBatch() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<EmailOutbox> batch = emailOutboxRepository.lockDueBatch(now, batchSize);
+            for (EmailOutbox email : batch) {
+                email.setStatus(EmailOutboxStatus.SENDING);
+                email.setClaimedAt(now);
+            }
+            return batch;
+        });
+    }
+
+    // Helper Method
+    private void recordFailure(EmailOutbox email, Exception e) {
+        int attempts = email.getAttempts() + 1;
+        String error = String.valueOf(e.getMessage());
+        if (error.length() > MAX_ERROR_LENGTH) {
+            error = error.substring(0, MAX_ERROR_LENGTH);
+        }
+        if (attempts >= maxAttempts) {
+            logger.error("Giving up on outbox email {} to {} after {} attempts", email.getOutboxId(), email.getRecipient(), attempts, e);
+            email.setStatus(EmailOutboxStatus.FAILED);
+            if (email.getSensitive()) {
+                email.setHtmlBody("");
+            }
+        } else {
+            long backoffMs = Math.min(retryBackoffMs << Math.min(attempts - 1, 30), maxBackoffMs);
+            logger.warn("Outbox email {} to {} failed (attempt {}), retrying in {} ms", email.getOutboxId(), email.getRecipient(), attempts, backoffMs);
+            email.setStatus(EmailOutboxStatus.PENDING);
+            email.setNextAttemptAt(LocalDateTime.now().plusNanos(backoffMs * 1_000_000));
+        }
+        email.setAttempts(attempts);
+        email.setClaimedAt(null);
+        email.setLastError(error);
+        transactionTemplate.executeWithoutResult(status -> emailOutboxRepository.save(email));
+    }
+}
@@ -0,0 +1,9 @@
+package com.concertfever.concertfever_backend.service;
+
+/**
+ * Application event published when an email has been written to the outbox.
+ * Listeners should use {@link org.springframework.transaction.event.TransactionalEventListener} so they only
+ * react once the row has been committed and is visible to the dispatcher.
+ */
+public record EmailQueuedEvent() {
+}
@@ -1,19 +1,29 @@
 package com.concertfever.concertfever_backend.service;
 
+import com.concertfever.concertfever_backend.entities.EmailOutbox;
+import com.concertfever.concertfever_backend.repository.EmailOutboxRepository;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.InternetAddress;
 import jakarta.mail.internet.MimeMessage;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
 
 @Service
 public class EmailService {
 
     private final JavaMailSender mailSender;
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public EmailService(JavaMailSender mailSender) {
+    public EmailService(JavaMailSender mailSender, EmailOutboxRepository emailOutboxRepository, ApplicationEventPublisher eventPublisher) {
         this.mailSender = mailSender;
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     public void sendHtmlMessage(String toEmailId, String subject, String htmlBody) throws MessagingException {
@@ -26,4 +36,37 @@ public class EmailService {
 
         mailSender.send(message);
     }
+
+    /**
+     * Queues an HTML email in the outbox as part of the caller's transaction.
+     * The email is delivered by the {@link EmailOutboxDispatcher} once the transaction has committed, and is
+     * discarded together with everything else if it rolls back.
+     *
+     * @param toEmailId The recipient's email address.
+     * @param subject   The subject of the email.
+     * @param htmlBody  The HTML body of the email.
+     */
+    @Transactional
+    public void queueHtmlMessage(String toEmailId, String subject, String htmlBody) {
+        queue(new EmailOutbox(toEmailId, subject, htmlBody, LocalDateTime.now()));
+    }
+
+    /**
+     * Queues an HTML email containing a secret, such as a temporary password, in the outbox as part of the
+     * caller's transaction. Its body is blanked as soon as the email has been delivered or given up on.
+     *
+     * @param toEmailId The recipient's email address.
+     * @param subject   The subject of the email.
+     * @param htmlBody  The HTML body of the email.
+     */
+    @Transactional
+    public void queueSensitiveHtmlMessage(String toEmailId, String subject, String htmlBody) {
+        queue(new EmailOutbox(toEmailId, subject, htmlBody, true, LocalDateTime.now()));
+    }
+
+    // Helper Method
+    private void queue(EmailOutbox email) {
+        emailOutboxRepository.save(email);
+        eventPublisher.publishEvent(new EmailQueuedEvent());
+    }
 }
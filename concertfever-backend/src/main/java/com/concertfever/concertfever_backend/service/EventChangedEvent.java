@@ -0,0 +1,11 @@
+package com.concertfever.concertfever_backend.service;
+
+/**
+ * Application event published when an {@link com.concertfever.concertfever_backend.entities.Event} row has been
+ * inserted, updated or deleted.
+ *
+ * @param eventId The ID of the changed event.
+ * @param deleted Whether the event was deleted.
+ */
+public record EventChangedEvent(Integer eventId, boolean deleted) {
+}
@@ -0,0 +1,206 @@
+package com.concertfever.concertfever_backend.service;
+
+import com.concertfever.concertfever_backend.entities.Event;
+import com.concertfever.concertfever_backend.repository.EventRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over event names, descriptions, venue names and cities.
+ * <p>
+ * The index is built once the application is ready and updated incrementally whenever an event is saved or
+ * deleted, so searching never scans the {@code events} table. Terms are kept sorted, which allows every query
+ * term to match as a prefix. Matches in the event name weigh more than matches in the venue, which weigh more
+ * than matches in the description.
+ * </p>
+ */
+@Service
+public class EventSearchIndex {
+
+    private static final float EVENT_NAME_WEIGHT = 3.0f;
+    private static final float VENUE_WEIGHT = 2.0f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+    // Prefix matches score lower than whole-word matches
+    private static final float PREFIX_MATCH_FACTOR = 0.5f;
+    private static final int MIN_TERM_LENGTH = 2;
+
+    private final EventRepository eventRepository;
+
+    // term -> (eventId -> weight)
+    private final NavigableMap<String, Map<Integer, Float>> postings = new TreeMap<>();
+    // eventId -> terms, used to remove an event's postings before re-indexing it
+    private final Map<Integer, Set<String>> termsByEventId = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Constructs an instance of {@link EventSearchIndex}.
+     *
+     * @param eventRepository The repository for accessing event data.
+     */
+    public EventSearchIndex(EventRepository eventRepository) {
+        this.eventRepository = eventRepository;
+    }
+
+    /**
+     * Builds the index from all events once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Event> events = eventRepository.findAllWithVenue();
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            termsByEventId.clear();
+            for (Event event : events) {
+                addToIndex(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Re-indexes or removes a single event once its change has been committed.
+     *
+     * @param eventChangedEvent The event describing which event changed.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEventChanged(EventChangedEvent eventChangedEvent) {
+        Event event = eventChangedEvent.deleted()
+                ? null
+                : eventRepository.findById(eventChangedEvent.eventId()).orElse(null);
+        lock.writeLock().lock();
+        try {
+            removeFromIndex(eventChangedEvent.eventId());
+            if (event != null) {
+                addToIndex(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Searches the index for events matching every term of the query.
+     *
+     * @param query The search query. Each term may be a prefix of an indexed word.
+     * @param limit The maximum number of results.
+     * @return The IDs of the matching events, most relevant first.
+     */
+    public List<Integer> search(String query, int limit) {
+        List<String> queryTerms = tokenize(query);
+        if (queryTerms.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<Integer, Float> scores = null;
+        lock.readLock().lock();
+        try {
+            for (String queryTerm : queryTerms) {
+                Map<Integer, Float> termScores = scoreTerm(queryTerm);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    // Every query term has to match
+                    scores.keySet().retainAll(termScores.keySet());
+                    scores.replaceAll((eventId, score) -> score + termScores.get(eventId));
+                }
+                if (scores.isEmpty()) {
+                    break;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Float>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    // Helper Method
+    // Best score per event for a single query term, across all indexed terms it is a prefix of
+    private Map<Integer, Float> scoreTerm(String queryTerm) {
+        Map<Integer, Float> termScores = new HashMap<>();
+        for (Map.Entry<String, Map<Integer, Float>> entry
+                : postings.subMap(queryTerm, true, queryTerm + Character.MAX_VALUE, false).entrySet()) {
+            float factor = entry.getKey().equals(queryTerm)
+                    ? 1.0f
+                    : PREFIX_MATCH_FACTOR * queryTerm.length() / entry.getKey().length();
+            entry.getValue().forEach((eventId, weight) ->
+                    termScores.merge(eventId, weight * factor, Math::max));
+        }
+        return termScores;
+    }
+
+    // Helper Method
+    private void addToIndex(Event event) {
+        Map<String, Float> weights = new HashMap<>();
+        addField(weights, event.getEventName(), EVENT_NAME_WEIGHT);
+        addField(weights, event.getDescription(), DESCRIPTION_WEIGHT);
+        if (event.getVenue() != null) {
+            addField(weights, event.getVenue().getVenueName(), VENUE_WEIGHT);
+            addField(weights, event.getVenue().getCity(), VENUE_WEIGHT);
+        }
+
+        Integer eventId = event.getEventId();
+        weights.forEach((term, weight) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(eventId, weight));
+        termsByEventId.put(eventId, new HashSet<>(weights.keySet()));
+    }
+
+    // Helper Method
+    private void removeFromIndex(Integer eventId) {
+        Set<String> terms = termsByEventId.remove(eventId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<Integer, Float> eventWeights = postings.get(term);
+            if (eventWeights != null) {
+                eventWeights.remove(eventId);
+                if (eventWeights.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    // Helper Method
+    private static void addField(Map<String, Float> weights, String text, float weight) {
+        for (String term : tokenize(text)) {
+            weights.merge(term, weight, Float::sum);
+        }
+    }
+
+    // Helper Method
+    private static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        for (String term : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (term.length() >= MIN_TERM_LENGTH) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+}
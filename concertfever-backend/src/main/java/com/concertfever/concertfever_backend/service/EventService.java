@@ -1,16 +1,41 @@
 package com.concertfever.concertfever_backend.service;
 
+import com.concertfever.concertfever_backend.config.CacheConfig;
+import com.concertfever.concertfever_backend.dto.EventCatalogRowDto;
 import com.concertfever.concertfever_backend.dto.EventFullDetailsDto;
+import com.concertfever.concertfever_backend.dto.EventPageDto;
+import com.concertfever.concertfever_backend.dto.EventSummaryDto;
 import com.concertfever.concertfever_backend.dto.TicketCategoryDto;
 import com.concertfever.concertfever_backend.entities.Category;
 import com.concertfever.concertfever_backend.entities.Event;
+import com.concertfever.concertfever_backend.entities.TicketCategory;
+import com.concertfever.concertfever_backend.entities.Venue;
 import com.concertfever.concertfever_backend.repository.EventRepository;
 import com.concertfever.concertfever_backend.repository.TicketCategoryRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
 
 /**
  * Service for handling event-related operations such as retrieving event details and associated ticket categories.
@@ -18,18 +43,27 @@ import java.util.List;
 @Service
 public class EventService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final EventRepository eventRepository;
     private final TicketCategoryRepository ticketCategoryRepository;
+    private final CacheManager cacheManager;
+    private final ObjectMapper objectMapper;
 
     /**
      * Constructs an instance of {@link EventService}.
      *
      * @param eventRepository The repository for accessing event data.
      * @param ticketCategoryRepository The repository for accessing ticket category data.
+     * @param cacheManager The cache manager holding the event catalog caches.
+     * @param objectMapper The application's Jackson object mapper, used to stream the catalog.
      */
-    public EventService(EventRepository eventRepository, TicketCategoryRepository ticketCategoryRepository) {
+    public EventService(EventRepository eventRepository, TicketCategoryRepository ticketCategoryRepository, CacheManager cacheManager,
+                        ObjectMapper objectMapper) {
         this.eventRepository = eventRepository;
         this.ticketCategoryRepository = ticketCategoryRepository;
+        this.cacheManager = cacheManager;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -37,14 +71,48 @@ public class EventService {
      *
      * @return A list of {@link EventFullDetailsDto} objects representing the full details of all events.
      */
+    @Cacheable(CacheConfig.ALL_EVENTS_CACHE)
     public List<EventFullDetailsDto> getAllEventsFullDetails() {
-        List<EventFullDetailsDto> allEvents = new ArrayList<>();
+        return assembleEventDetails(eventRepository.findAllWithVenue(), ticketCategoryRepository.findAllOrdered());
+    }
 
-        for (Category category : Category.values()) {
-            FindEventDetails(allEvents, category);
+    /**
+     * Writes full details for all events to the given stream as a JSON array.
+     * <p>
+     * The catalog is read as a stream of flat rows with a JDBC fetch size and each event is written as soon as
+     * its rows have been read, so memory use does not grow with the size of the catalog.
+     * </p>
+     *
+     * @param out The stream to write the JSON array to. It is flushed but not closed.
+     * @throws IOException if writing to the stream fails.
+     */
+    @Transactional(readOnly = true)
+    public void writeAllEventsFullDetails(OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (Stream<EventCatalogRowDto> rows = eventRepository.streamCatalogRows();
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                     .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            generator.writeStartArray();
+            EventCatalogRowDto current = null;
+            List<TicketCategoryDto> ticketCategories = new ArrayList<>();
+            Iterator<EventCatalogRowDto> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                EventCatalogRowDto row = iterator.next();
+                if (current != null && !current.eventId().equals(row.eventId())) {
+                    writer.writeValue(generator, toEventFullDetails(current, ticketCategories));
+                    ticketCategories = new ArrayList<>();
+                }
+                current = row;
+                if (row.ticketCategory() != null) {
+                    ticketCategories.add(new TicketCategoryDto(row.ticketCategory(), row.price(), row.totalQuantity(), row.remainingQuantity()));
+                }
+            }
+            if (current != null) {
+                writer.writeValue(generator, toEventFullDetails(current, ticketCategories));
+            }
+            generator.writeEndArray();
+            generator.flush();
         }
-
-        return allEvents;
     }
 
     /**
@@ -54,18 +122,34 @@ public class EventService {
      * @return A list of {@link EventFullDetailsDto} objects representing the full details of events in the specified category.
      * @throws IllegalArgumentException if the category is invalid.
      */
+    @Cacheable(cacheNames = CacheConfig.EVENTS_BY_CATEGORY_CACHE, key = "#categoryStr.toUpperCase()")
     public List<EventFullDetailsDto> getEventFullDetailsByCategory(String categoryStr) {
-        Category category;
-        try {
-            category = Category.valueOf(categoryStr.toUpperCase());
-        } catch (IllegalArgumentException e) {
-            throw new IllegalArgumentException("Invalid category");
-        }
+        Category category = parseCategory(categoryStr);
 
-        List<EventFullDetailsDto> eventDtos = new ArrayList<>();
-        FindEventDetails(eventDtos, category);
+        return assembleEventDetails(eventRepository.findAllWithVenueByCategory(category),
+                ticketCategoryRepository.findAllByEventCategory(category));
+    }
 
-        return eventDtos;
+    /**
+     * Retrieves summaries of all events, without their descriptions.
+     *
+     * @return A list of {@link EventSummaryDto} objects, one per event.
+     */
+    @Cacheable(CacheConfig.ALL_EVENT_SUMMARIES_CACHE)
+    public List<EventSummaryDto> getAllEventSummaries() {
+        return eventRepository.findAllSummaries();
+    }
+
+    /**
+     * Retrieves summaries of events filtered by category, without their descriptions.
+     *
+     * @param categoryStr The category to filter events by.
+     * @return A list of {@link EventSummaryDto} objects for the events in the specified category.
+     * @throws IllegalArgumentException if the category is invalid.
+     */
+    @Cacheable(cacheNames = CacheConfig.EVENT_SUMMARIES_BY_CATEGORY_CACHE, key = "#categoryStr.toUpperCase()")
+    public List<EventSummaryDto> getEventSummariesByCategory(String categoryStr) {
+        return eventRepository.findSummariesByCategory(parseCategory(categoryStr));
     }
 
     /**
@@ -75,6 +159,7 @@ public class EventService {
      * @return An {@link EventFullDetailsDto} object representing the full details of the specified event.
      * @throws EntityNotFoundException if the event does not exist.
      */
+    @Cacheable(CacheConfig.EVENT_BY_ID_CACHE)
     public EventFullDetailsDto getEventFullDetailsByEventId(Integer eventId) {
         Event event = eventRepository.findById(eventId)
                 .orElseThrow(() -> new EntityNotFoundException("Event not found"));
@@ -92,22 +177,188 @@ public class EventService {
         );
     }
 
+    /**
+     * Retrieves full details for the given events, in the order of the supplied IDs.
+     * IDs of events that no longer exist are skipped.
+     *
+     * @param eventIds The IDs of the events to retrieve.
+     * @return A list of {@link EventFullDetailsDto} objects in the same order as {@code eventIds}.
+     */
+    public List<EventFullDetailsDto> getEventFullDetailsByEventIds(List<Integer> eventIds) {
+        if (eventIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Integer, Event> eventsById = new HashMap<>();
+        for (Event event : eventRepository.findAllWithVenueByEventIds(eventIds)) {
+            eventsById.put(event.getEventId(), event);
+        }
+        List<Event> orderedEvents = eventIds.stream()
+                .map(eventsById::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return assembleEventDetails(orderedEvents, ticketCategoryRepository.findAllByEventIds(eventIds));
+    }
+
+    /**
+     * Retrieves one page of events ordered by start date and event ID, using keyset pagination.
+     * <p>
+     * The page starts right after the event identified by {@code afterStartDate} and {@code afterEventId},
+     * so the query cost stays the same no matter how deep the client has scrolled. All filters are optional.
+     * </p>
+     *
+     * @param categoryStr    The category to filter events by, or {@code null} for all categories.
+     * @param fromDate       The earliest start date to include, or {@code null}.
+     * @param toDate         The latest start date to include, or {@code null}.
+     * @param city           The venue city to filter events by, or {@code null}.
+     * @param afterStartDate The start date of the last event of the previous page, or {@code null} for the first page.
+     * @param afterEventId   The ID of the last event of the previous page, or {@code null} for the first page.
+     * @param size           The maximum number of events in the page.
+     * @return An {@link EventPageDto} containing the events and the cursor for the next page.
+     * @throws IllegalArgumentException if the category or page size is invalid.
+     */
+    public EventPageDto getEventPage(String categoryStr, LocalDate fromDate, LocalDate toDate, String city,
+                                     LocalDate afterStartDate, Integer afterEventId, int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        Category category = categoryStr == null ? null : parseCategory(categoryStr);
+        if (afterStartDate != null && afterEventId == null) {
+            afterEventId = 0;
+        }
+
+        // Fetch one extra row to find out whether another page exists
+        // Keyset (seek) pagination on (start_date, event_id): the page starts strictly after the given cursor,
+        // so the cost of a page does not depend on how many rows came before it
+        List<Event> events = eventRepository.findEventPage(category, fromDate, toDate, city,
+                afterStartDate, afterEventId, size + 1);
+        boolean hasNextPage = events.size() > size;
+        if (hasNextPage) {
+            events = events.subList(0, size);
+        }
+
+        List<Integer> eventIds = events.stream().map(Event::getEventId).toList();
+        List<TicketCategory> ticketCategories = eventIds.isEmpty()
+                ? List.of()
+                : ticketCategoryRepository.findAllByEventIds(eventIds);
+        List<EventFullDetailsDto> eventDtos = assembleEventDetails(events, ticketCategories);
+
+        if (!hasNextPage) {
+            return new EventPageDto(eventDtos, null, null);
+        }
+        Event last = events.get(events.size() - 1);
+        return new EventPageDto(eventDtos, last.getStartDate(), last.getEventId());
+    }
+
+    /**
+     * Evicts cached catalog entries once a ticket inventory change has been committed.
+     * <p>
+     * Only the affected events are dropped from the by-event-id cache. The list caches are cleared entirely
+     * as every list may contain one of the affected events.
+     * </p>
+     *
+     * @param inventoryChangedEvent The event describing which events had their ticket categories changed.
+     */
+    @TransactionalEventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onInventoryChanged(InventoryChangedEvent inventoryChangedEvent) {
+        Cache eventByIdCache = cacheManager.getCache(CacheConfig.EVENT_BY_ID_CACHE);
+        if (eventByIdCache != null) {
+            inventoryChangedEvent.eventIds().forEach(eventByIdCache::evict);
+        }
+        clearCache(CacheConfig.ALL_EVENTS_CACHE);
+        clearCache(CacheConfig.EVENTS_BY_CATEGORY_CACHE);
+    }
+
+    /**
+     * Evicts cached catalog entries once an event has been inserted, updated or deleted.
+     * <p>
+     * The event is dropped from the by-event-id cache, and every list cache is cleared, as the event may have
+     * joined or left any of them.
+     * </p>
+     *
+     * @param eventChangedEvent The event describing which event changed.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onEventChanged(EventChangedEvent eventChangedEvent) {
+        Cache eventByIdCache = cacheManager.getCache(CacheConfig.EVENT_BY_ID_CACHE);
+        if (eventByIdCache != null) {
+            eventByIdCache.evict(eventChangedEvent.eventId());
+        }
+        clearCache(CacheConfig.ALL_EVENTS_CACHE);
+        clearCache(CacheConfig.EVENTS_BY_CATEGORY_CACHE);
+        clearCache(CacheConfig.ALL_EVENT_SUMMARIES_CACHE);
+        clearCache(CacheConfig.EVENT_SUMMARIES_BY_CATEGORY_CACHE);
+    }
+
+    // Helper Method
+    private static EventFullDetailsDto toEventFullDetails(EventCatalogRowDto row, List<TicketCategoryDto> ticketCategories) {
+        Venue venue = new Venue();
+        venue.setVenueId(row.venueId());
+        venue.setVenueName(row.venueName());
+        venue.setSeatingCapacity(row.seatingCapacity());
+        venue.setAddress(row.address());
+        venue.setCountry(row.country());
+        venue.setCity(row.city());
+        venue.setPinCode(row.pinCode());
+        return new EventFullDetailsDto(
+                row.eventId(),
+                venue,
+                ticketCategories,
+                row.eventName(),
+                row.startDate(),
+                row.endDate(),
+                row.description(),
+                row.category()
+        );
+    }
+
+    // Helper Method
+    private Category parseCategory(String categoryStr) {
+        try {
+            return Category.valueOf(categoryStr.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid category");
+        }
+    }
+
     // Helper Method
-    private void FindEventDetails(List<EventFullDetailsDto> allEvents, Category category) {
-        List<Event> events = eventRepository.findEventByCategory(category);
+    private void clearCache(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    // Helper Method
+    // Groups the ticket categories by event in memory so a whole catalog is built from two queries
+    private List<EventFullDetailsDto> assembleEventDetails(List<Event> events, List<TicketCategory> ticketCategories) {
+        Map<Integer, List<TicketCategoryDto>> categoriesByEventId = new HashMap<>();
+        for (TicketCategory ticketCategory : ticketCategories) {
+            categoriesByEventId
+                    .computeIfAbsent(ticketCategory.getTicketCategoryId().getEventId(), id -> new ArrayList<>())
+                    .add(new TicketCategoryDto(
+                            ticketCategory.getTicketCategoryId().getTicketCategory(),
+                            ticketCategory.getPrice(),
+                            ticketCategory.getTotalQuantity(),
+                            ticketCategory.getRemainingQuantity()
+                    ));
+        }
+
+        List<EventFullDetailsDto> eventDtos = new ArrayList<>(events.size());
         for (Event event : events) {
-            List<TicketCategoryDto> ticketCategories = ticketCategoryRepository.findTicketCategoriesByEventId(event.getEventId());
             EventFullDetailsDto dto = new EventFullDetailsDto(
                     event.getEventId(),
                     event.getVenue(),
-                    ticketCategories,
+                    categoriesByEventId.getOrDefault(event.getEventId(), new ArrayList<>()),
                     event.getEventName(),
                     event.getStartDate(),
                     event.getEndDate(),
                     event.getDescription(),
                     event.getCategory()
             );
-            allEvents.add(dto);
+            eventDtos.add(dto);
         }
+        return eventDtos;
     }
 }
@@ -0,0 +1,299 @@
+package com.concertfever.concertfever_backend.service;
+
+import com.concertfever.concertfever_backend.dto.EventFullDetailsDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Service keeping pre-serialized JSON snapshots of the event endpoint responses.
+ * <p>
+ * Each snapshot holds the JSON bytes, an optional gzipped copy and a strong ETag derived from the content.
+ * Repeated requests are answered from the snapshot without touching the database or Jackson, and clients
+ * presenting a matching {@code If-None-Match} header can be answered with 304 Not Modified.
+ * </p>
+ * <p>
+ * Snapshots remember which events they contain. A ticket inventory change only invalidates the snapshots containing
+ * an affected event, while inserting, updating or deleting an event also invalidates every list, as the event may
+ * have joined or left one. Snapshots also expire after a maximum age, so changes not announced by either event,
+ * such as edits to a venue, show up eventually.
+ * </p>
+ * <p>
+ * Only one request rebuilds a given snapshot at a time. Concurrent requests for it are served the previous snapshot
+ * while it is rebuilt, or wait for the rebuild if there is none, so a burst of requests after an invalidation
+ * does not serialize the same response over and over.
+ * </p>
+ */
+@Service
+public class EventSnapshotService {
+
+    private final EventService eventService;
+    private final ObjectMapper objectMapper;
+    private final boolean gzipEnabled;
+    private final long maxAgeMs;
+
+    private final Map<String, Entry> snapshots = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Entry>> buildsInFlight = new ConcurrentHashMap<>();
+    // Bumped on every invalidation; a snapshot carries the version it started building at
+    private final AtomicLong catalogVersion = new AtomicLong();
+    // The version at which each event, and the lists as a whole, were last invalidated
+    private final Map<Integer, Long> invalidatedVersionByEventId = new ConcurrentHashMap<>();
+    private final AtomicLong listsInvalidatedVersion = new AtomicLong();
+
+    /**
+     * Constructs an instance of {@link EventSnapshotService}.
+     *
+     * @param eventService The service providing the event details to serialize.
+     * @param objectMapper The application's Jackson object mapper.
+     * @param gzipEnabled  Whether a gzipped copy of each snapshot should be kept.
+     * @param maxAgeMs     How long a snapshot is served before it is rebuilt, even if nothing announced a change.
+     */
+    public EventSnapshotService(EventService eventService, ObjectMapper objectMapper,
+                                @Value("${concertfever.snapshot.gzip-enabled:true}") boolean gzipEnabled,
+                                @Value("${concertfever.snapshot.max-age-ms:60000}") long maxAgeMs) {
+        this.eventService = eventService;
+        this.objectMapper = objectMapper;
+        this.gzipEnabled = gzipEnabled;
+        this.maxAgeMs = maxAgeMs;
+    }
+
+    /**
+     * Retrieves the snapshot of the full details of all events.
+     *
+     * @return The current {@link Snapshot}.
+     */
+    public Snapshot getAllEventsSnapshot() {
+        // Streamed straight from the database into the snapshot bytes, without building a list of DTOs first
+        return getOrBuild("all", Scope.ALL_EVENTS, (out, eventIds) -> eventService.writeAllEventsFullDetails(out));
+    }
+
+    /**
+     * Retrieves the snapshot of the full details of events in a category.
+     *
+     * @param categoryStr The category to filter events by.
+     * @return The current {@link Snapshot}.
+     * @throws IllegalArgumentException if the category is invalid.
+     */
+    public Snapshot getEventsByCategorySnapshot(String categoryStr) {
+        return getOrBuild("category:" + categoryStr.toUpperCase(), Scope.LIST, (out, eventIds) -> {
+            List<EventFullDetailsDto> events = eventService.getEventFullDetailsByCategory(categoryStr);
+            events.forEach(event -> eventIds.add(event.eventId()));
+            objectMapper.writeValue(out, events);
+        });
+    }
+
+    /**
+     * Retrieves the snapshot of the full details of a single event.
+     *
+     * @param eventId The ID of the event.
+     * @return The current {@link Snapshot}.
+     * @throws jakarta.persistence.EntityNotFoundException if the event does not exist.
+     */
+    public Snapshot getEventSnapshot(Integer eventId) {
+        return getOrBuild("event:" + eventId, Scope.EVENTS, (out, eventIds) -> {
+            eventIds.add(eventId);
+            objectMapper.writeValue(out, eventService.getEventFullDetailsByEventId(eventId));
+        });
+    }
+
+    /**
+     * Invalidates the snapshots containing the affected events once a ticket inventory change has been committed.
+     * Runs after {@link EventService#onInventoryChanged} so rebuilt snapshots never read evicted cache entries.
+     *
+     * @param inventoryChangedEvent The event describing which events had their ticket categories changed.
+     */
+    @TransactionalEventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    public void onInventoryChanged(InventoryChangedEvent inventoryChangedEvent) {
+        long version = catalogVersion.incrementAndGet();
+        inventoryChangedEvent.eventIds().forEach(eventId -> invalidatedVersionByEventId.merge(eventId, version, Math::max));
+        evictStale();
+    }
+
+    /**
+     * Invalidates the snapshots of a changed event and all lists once the change has been committed.
+     * Runs after {@link EventService#onEventChanged} so rebuilt snapshots never read evicted cache entries.
+     *
+     * @param eventChangedEvent The event describing which event changed.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    public void onEventChanged(EventChangedEvent eventChangedEvent) {
+        long version = catalogVersion.incrementAndGet();
+        invalidatedVersionByEventId.merge(eventChangedEvent.eventId(), version, Math::max);
+        listsInvalidatedVersion.accumulateAndGet(version, Math::max);
+        evictStale();
+    }
+
+    // Helper Method
+    private Snapshot getOrBuild(String key, Scope scope, ResponseWriter responseWriter) {
+        Entry entry = snapshots.get(key);
+        if (entry != null && isCurrent(entry)) {
+            return entry.snapshot();
+        }
+
+        CompletableFuture<Entry> build = new CompletableFuture<>();
+        CompletableFuture<Entry> inFlight = buildsInFlight.putIfAbsent(key, build);
+        if (inFlight != null) {
+            return entry != null ? entry.snapshot() : await(inFlight);
+        }
+        try {
+            // A snapshot built from data read before an invalidation carries the old version and is rebuilt on its next request
+            Entry built = serialize(catalogVersion.get(), scope, responseWriter);
+            snapshots.put(key, built);
+            build.complete(built);
+            return built.snapshot();
+        } catch (RuntimeException e) {
+            build.completeExceptionally(e);
+            throw e;
+        } finally {
+            buildsInFlight.remove(key, build);
+        }
+    }
+
+    // Helper Method
+    // Rethrows the exception of a failed build, e.g. EntityNotFoundException for a missing event, as is
+    private static Snapshot await(CompletableFuture<Entry> build) {
+        try {
+            return build.join().snapshot();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // Helper Method
+    private boolean isCurrent(Entry entry) {
+        if (System.currentTimeMillis() - entry.builtAtMs() >= maxAgeMs) {
+            return false;
+        }
+        long version = entry.snapshot().version();
+        if (entry.scope() == Scope.ALL_EVENTS) {
+            return version == catalogVersion.get();
+        }
+        if (entry.scope() == Scope.LIST && version < listsInvalidatedVersion.get()) {
+            return false;
+        }
+        for (Integer eventId : entry.eventIds()) {
+            if (invalidatedVersionByEventId.getOrDefault(eventId, 0L) > version) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Helper Method
+    // Frees the memory of invalidated snapshots right away instead of on their next request.
+    // The snapshot of all events is invalidated by every purchase, so it is kept to be served while it is rebuilt
+    private void evictStale() {
+        snapshots.values().removeIf(entry -> entry.scope() != Scope.ALL_EVENTS && !isCurrent(entry));
+    }
+
+    // Helper Method
+    private Entry serialize(long version, Scope scope, ResponseWriter responseWriter) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            Set<Integer> eventIds = new HashSet<>();
+            long builtAtMs = System.currentTimeMillis();
+            responseWriter.write(out, eventIds);
+            byte[] json = out.toByteArray();
+            byte[] gzip = gzipEnabled ? gzip(json) : null;
+            String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json), 0, 16);
+            Snapshot snapshot = new Snapshot(version, json, gzip, "\"" + hash + "\"", "\"" + hash + "-gzip\"");
+            return new Entry(snapshot, scope, eventIds, builtAtMs);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not serialize event snapshot", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    // Helper Method
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+            gzipOut.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Writes a response body as JSON to a stream and collects the IDs of the events it contains.
+     */
+    @FunctionalInterface
+    private interface ResponseWriter {
+        void write(OutputStream out, Set<Integer> eventIds) throws IOException;
+    }
+
+    /**
+     * Which changes invalidate a snapshot: those of its own events, additionally any event change for lists,
+     * or any change at all for the snapshot of all events.
+     */
+    private enum Scope {
+        EVENTS, LIST, ALL_EVENTS
+    }
+
+    // A snapshot together with what it was built from
+    private record Entry(Snapshot snapshot, Scope scope, Set<Integer> eventIds, long builtAtMs) {
+    }
+
+    /**
+     * A pre-serialized response body together with its strong ETags.
+     *
+     * @param version  The catalog version the snapshot was built from.
+     * @param json     The JSON body.
+     * @param gzip     The gzipped JSON body, or {@code null} if gzip snapshots are disabled.
+     * @param eTag     The ETag of the identity-encoded body.
+     * @param gzipETag The ETag of the gzip-encoded body.
+     */
+    public record Snapshot(long version, byte[] json, byte[] gzip, String eTag, String gzipETag) {
+
+        /**
+         * Checks whether an {@code If-None-Match} header value matches the given representation's ETag.
+         *
+         * @param ifNoneMatch The header value, possibly a comma-separated list, or {@code null}.
+         * @param gzipped     Whether the gzip representation is being served.
+         * @return {@code true} if the client already holds the current representation.
+         */
+        public boolean matches(String ifNoneMatch, boolean gzipped) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            String current = gzipped ? gzipETag : eTag;
+            for (String candidate : ifNoneMatch.split(",")) {
+                candidate = candidate.trim();
+                if (candidate.startsWith("W/")) {
+                    candidate = candidate.substring(2);
+                }
+                if (candidate.equals("*") || candidate.equals(current)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package com.concertfever.concertfever_backend.service;
+
+import com.concertfever.concertfever_backend.entities.TicketCategoryId;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory inventory ledger used in flash-sale mode.
+ * <p>
+ * For the configured events, the remaining quantity of every ticket category is held in an atomic counter,
+ * so purchases are admitted or rejected with a compare-and-set instead of a database row lock. Committed
+ * decrements are collected per category and written to {@code ticket_category} in periodic JDBC batches.
+ * On startup the counters are reconciled from the {@code tickets} and {@code ticket_hold} tables (total quantity
+ * minus tickets sold and held), so decrements that had not been flushed before a restart are neither lost nor sold twice.
+ * This happens while the bean is initialized, before the web server accepts requests, and within one transaction that
+ * locks the reconciled {@code ticket_category} rows, so no purchase can commit between reading and writing them back.
+ * </p>
+ * <p>
+ * The counters are the only source of truth while flash-sale mode is on, so exactly one application instance may run
+ * with it enabled; a second instance would sell the same tickets again. This is enforced with a MariaDB named lock
+ * taken on a dedicated connection before the counters are loaded. An instance that cannot get the lock fails to
+ * start, and the lock is checked periodically, which also keeps its connection from timing out.
+ * </p>
+ */
+@Service
+public class FlashSaleInventoryLedger {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlashSaleInventoryLedger.class);
+
+    private static final String RECONCILE_SQL = """
+            SELECT tc.event_id, tc.ticket_category, tc.total_quantity
+                   - (SELECT COUNT(*) FROM tickets t
+                      WHERE t.event_id = tc.event_id AND t.ticket_category = tc.ticket_category)
+                   - (SELECT COALESCE(SUM(h.quantity), 0) FROM ticket_hold h
+                      WHERE h.event_id = tc.event_id AND h.ticket_category = tc.ticket_category) AS remaining
+            FROM ticket_category tc
+            WHERE tc.event_id IN (:eventIds)
+            ORDER BY tc.event_id, tc.ticket_category
+            FOR UPDATE
+            """;
+    private static final String SET_REMAINING_SQL =
+            "UPDATE ticket_category SET remaining_quantity = ? WHERE event_id = ? AND ticket_category = ?";
+    private static final String DECREMENT_REMAINING_SQL =
+            "UPDATE ticket_category SET remaining_quantity = remaining_quantity - ? WHERE event_id = ? AND ticket_category = ?";
+    private static final String NODE_LOCK_NAME = "concertfever.flash_sale_ledger";
+
+    private final boolean enabled;
+    private final Set<Integer> flashSaleEventIds;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DataSource dataSource;
+
+    // Holds the named lock for as long as this instance owns the flash-sale inventory
+    private Connection nodeLockConnection;
+
+    private final Map<TicketCategoryId, AtomicInteger> remainingById = new ConcurrentHashMap<>();
+    // Committed decrements not yet written to the database
+    private final Map<TicketCategoryId, AtomicInteger> pendingDecrementsById = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs an instance of {@link FlashSaleInventoryLedger}.
+     *
+     * @param enabled              Whether flash-sale mode is enabled.
+     * @param flashSaleEventIds    The IDs of the events whose inventory is managed by the ledger.
+     * @param jdbcTemplate         The JDBC template used for batched write-behind.
+     * @param transactionTemplate  The template used to run the reconciliation and each flush in its own transaction.
+     * @param eventPublisher       The publisher used to announce flushed inventory changes.
+     * @param dataSource           The data source the connection holding the single-instance lock is taken from.
+     */
+    public FlashSaleInventoryLedger(@Value("${concertfever.flash-sale.enabled:false}") boolean enabled,
+                                    @Value("${concertfever.flash-sale.event-ids:}") Set<Integer> flashSaleEventIds,
+                                    JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                    ApplicationEventPublisher eventPublisher, DataSource dataSource) {
+        this.enabled = enabled;
+        this.flashSaleEventIds = Set.copyOf(flashSaleEventIds);
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Loads the counters of all flash-sale events, reconciled from the tickets sold so far, and writes the
+     * reconciled remaining quantities back to the database.
+     *
+     * @throws IllegalStateException if another instance is already running in flash-sale mode.
+     */
+    @PostConstruct
+    public synchronized void load() {
+        if (!enabled || flashSaleEventIds.isEmpty()) {
+            return;
+        }
+        acquireNodeLock();
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Object[]> reconciled = new ArrayList<>();
+            namedParameterJdbcTemplate.query(RECONCILE_SQL, new MapSqlParameterSource("eventIds", flashSaleEventIds), rs -> {
+                TicketCategoryId id = new TicketCategoryId(rs.getInt("event_id"), rs.getString("ticket_category").charAt(0));
+                int remaining = Math.max(rs.getInt("remaining"), 0);
+                remainingById.put(id, new AtomicInteger(remaining));
+                reconciled.add(new Object[]{remaining, id.getEventId(), String.valueOf(id.getTicketCategory())});
+            });
+            jdbcTemplate.batchUpdate(SET_REMAINING_SQL, reconciled);
+        });
+        logger.info("Flash-sale ledger loaded {} ticket categories for events {}", remainingById.size(), flashSaleEventIds);
+    }
+
+    /**
+     * Checks whether the inventory of a ticket category is managed by the ledger.
+     *
+     * @param id The ID of the ticket category.
+     * @return {@code true} if flash-sale mode is enabled and the category belongs to a flash-sale event.
+     */
+    public boolean manages(TicketCategoryId id) {
+        return enabled && remainingById.containsKey(id);
+    }
+
+    /**
+     * Reserves the given quantities, all or nothing.
+     *
+     * @param quantities The number of tickets to reserve per ticket category. Every category must be managed by the ledger.
+     * @throws IllegalStateException if a ticket category does not have enough tickets remaining.
+     */
+    public void reserve(Map<TicketCategoryId, Integer> quantities) {
+        Map<TicketCategoryId, Integer> reserved = new HashMap<>();
+        for (Map.Entry<TicketCategoryId, Integer> entry : quantities.entrySet()) {
+            if (!tryDecrement(remainingById.get(entry.getKey()), entry.getValue())) {
+                release(reserved);
+                TicketCategoryId id = entry.getKey();
+                throw new IllegalStateException("Not enough tickets remaining for event " + id.getEventId()
+                        + " category " + id.getTicketCategory());
+            }
+            reserved.put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Returns reserved quantities to the ledger, e.g. when the purchasing transaction rolled back.
+     *
+     * @param quantities The number of tickets to release per ticket category.
+     */
+    public void release(Map<TicketCategoryId, Integer> quantities) {
+        quantities.forEach((id, quantity) -> remainingById.get(id).addAndGet(quantity));
+    }
+
+    /**
+     * Queues committed reservations to be written to the database by the next flush.
+     *
+     * @param quantities The number of tickets sold per ticket category.
+     */
+    public void commit(Map<TicketCategoryId, Integer> quantities) {
+        quantities.forEach((id, quantity) ->
+                pendingDecrementsById.computeIfAbsent(id, key -> new AtomicInteger()).addAndGet(quantity));
+    }
+
+    /**
+     * Returns quantities whose reservation had already been committed (e.g. an expired hold) to the ledger,
+     * and queues the matching increment for the database.
+     *
+     * @param quantities The number of tickets to return per ticket category.
+     */
+    public void restock(Map<TicketCategoryId, Integer> quantities) {
+        release(quantities);
+        quantities.forEach((id, quantity) ->
+                pendingDecrementsById.computeIfAbsent(id, key -> new AtomicInteger()).addAndGet(-quantity));
+    }
+
+    /**
+     * Writes all pending decrements to the database in one JDBC batch.
+     */
+    @Scheduled(fixedDelayString = "${concertfever.flash-sale.flush-interval-ms:200}")
+    public void flush() {
+        Map<TicketCategoryId, Integer> drained = new TreeMap<>(InventoryService.LOCK_ORDER);
+        pendingDecrementsById.forEach((id, pending) -> {
+            int quantity = pending.getAndSet(0);
+            if (quantity != 0) {
+                drained.put(id, quantity);
+            }
+        });
+        if (drained.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> batch = new ArrayList<>(drained.size());
+        Set<Integer> eventIds = new HashSet<>();
+        drained.forEach((id, quantity) -> {
+            batch.add(new Object[]{quantity, id.getEventId(), String.valueOf(id.getTicketCategory())});
+            eventIds.add(id.getEventId());
+        });
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(DECREMENT_REMAINING_SQL, batch);
+                // Listeners refresh their views of these events once the flush commits
+                eventPublisher.publishEvent(new InventoryChangedEvent(eventIds));
+            });
+        } catch (RuntimeException e) {
+            // Put the decrements back so the next flush retries them
+            commit(drained);
+            logger.warn("Flash-sale ledger flush failed, will retry", e);
+        }
+    }
+
+    /**
+     * Checks that this instance still holds the single-instance lock, and takes it again if its connection was lost.
+     */
+    @Scheduled(fixedDelayString = "${concertfever.flash-sale.node-lock-check-interval-ms:30000}")
+    public synchronized void checkNodeLock() {
+        if (nodeLockConnection == null) {
+            return;
+        }
+        try (PreparedStatement statement = nodeLockConnection.prepareStatement("SELECT IS_USED_LOCK(?) = CONNECTION_ID()")) {
+            statement.setString(1, NODE_LOCK_NAME);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (rs.next() && rs.getInt(1) == 1) {
+                    return;
+                }
+            }
+        } catch (SQLException e) {
+            logger.warn("Lost the connection holding the flash-sale lock", e);
+        }
+        closeNodeLockConnection();
+        try {
+            acquireNodeLock();
+            logger.warn("Re-acquired the flash-sale lock");
+        } catch (IllegalStateException e) {
+            logger.error("Another instance took over the flash-sale lock; tickets may be oversold until this instance is stopped", e);
+        }
+    }
+
+    /**
+     * Writes the remaining pending decrements and releases the single-instance lock on shutdown.
+     */
+    @PreDestroy
+    public synchronized void shutdown() {
+        flush();
+        if (nodeLockConnection == null) {
+            return;
+        }
+        // Pooled connections are not really closed, so the lock has to be released explicitly
+        try (PreparedStatement statement = nodeLockConnection.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            statement.setString(1, NODE_LOCK_NAME);
+            statement.executeQuery().close();
+        } catch (SQLException e) {
+            logger.warn("Could not release the flash-sale lock", e);
+        }
+        closeNodeLockConnection();
+    }
+
+    // Helper Method
+    // The lock belongs to the database session, so it is also released if this instance dies
+    private void acquireNodeLock() {
+        Connection connection = null;
+        try {
+            connection = dataSource.getConnection();
+            try (PreparedStatement statement = connection.prepareStatement("SELECT GET_LOCK(?, 0)")) {
+                statement.setString(1, NODE_LOCK_NAME);
+                try (ResultSet rs = statement.executeQuery()) {
+                    if (rs.next() && rs.getInt(1) == 1) {
+                        nodeLockConnection = connection;
+                        return;
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            closeQuietly(connection);
+            throw new IllegalStateException("Could not acquire the flash-sale lock", e);
+        }
+        closeQuietly(connection);
+        throw new IllegalStateException("Flash-sale mode is already enabled on another instance. Only one instance may run with "
+                + "concertfever.flash-sale.enabled=true");
+    }
+
+    // Helper Method
+    private void closeNodeLockConnection() {
+        closeQuietly(nodeLockConnection);
+        nodeLockConnection = null;
+    }
+
+    // Helper Method
+    private static void closeQuietly(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            logger.debug("Could not close the flash-sale lock connection", e);
+        }
+    }
+
+    // Helper Method
+    private static boolean tryDecrement(AtomicInteger remaining, int quantity) {
+        while (true) {
+            int current = remaining.get();
+            if (current < quantity) {
+                return false;
+            }
+            if (remaining.compareAndSet(current, current - quantity)) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.concertfever.concertfever_backend.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hashed timer wheel for expiring large numbers of items at a coarse granularity.
+ * <p>
+ * Time is divided into ticks, and each tick maps onto one of a fixed number of buckets. Scheduling an item
+ * appends it to the bucket of its deadline tick, and advancing the wheel only visits the buckets of the ticks
+ * that have passed. Both operations therefore cost O(1) per item, however many items are scheduled. Items whose
+ * deadline lies more than one revolution ahead simply stay in their bucket until their round comes up.
+ * Cancelled items are not removed from the wheel; callers should ignore items that are no longer relevant when
+ * they expire.
+ * </p>
+ *
+ * @param <T> The type of the scheduled items.
+ */
+public class HashedTimerWheel<T> {
+
+    private record Timeout<T>(T item, long deadlineTick) {
+    }
+
+    private final long tickMs;
+    private final long startMs;
+    private final ArrayDeque<Timeout<T>>[] buckets;
+    private final int mask;
+    private long processedTick;
+
+    /**
+     * Constructs an instance of {@link HashedTimerWheel}.
+     *
+     * @param tickMs     The duration of one tick in milliseconds, i.e. the expiry granularity.
+     * @param wheelSize  The number of buckets. Rounded up to the next power of two.
+     * @param startMs    The time in milliseconds at which tick zero starts.
+     */
+    @SuppressWarnings("unchecked")
+    public HashedTimerWheel(long tickMs, int wheelSize, long startMs) {
+        if (tickMs <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Tick duration and wheel size must be positive");
+        }
+        int size = Integer.highestOneBit(wheelSize);
+        if (size < wheelSize) {
+            size <<= 1;
+        }
+        this.tickMs = tickMs;
+        this.startMs = startMs;
+        this.buckets = new ArrayDeque[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Schedules an item to expire at the given time.
+     *
+     * @param item       The item to schedule.
+     * @param deadlineMs The time in milliseconds at which the item expires. Items already past their deadline
+     *                   expire on the next advance.
+     */
+    public synchronized void schedule(T item, long deadlineMs) {
+        long deadlineTick = Math.max(Math.floorDiv(deadlineMs - startMs + tickMs - 1, tickMs), processedTick + 1);
+        buckets[(int) (deadlineTick & mask)].add(new Timeout<>(item, deadlineTick));
+    }
+
+    /**
+     * Advances the wheel to the given time and collects every item whose deadline has passed.
+     *
+     * @param nowMs The current time in milliseconds.
+     * @return The expired items, in no particular order.
+     */
+    public synchronized List<T> advance(long nowMs) {
+        List<T> expired = new ArrayList<>();
+        long currentTick = Math.floorDiv(nowMs - startMs, tickMs);
+        // A long pause only needs to visit every bucket once
+        long fromTick = Math.max(processedTick + 1, currentTick - mask);
+        for (long tick = fromTick; tick <= currentTick; tick++) {
+            ArrayDeque<Timeout<T>> bucket = buckets[(int) (tick & mask)];
+            for (int remaining = bucket.size(); remaining > 0; remaining--) {
+                Timeout<T> timeout = bucket.poll();
+                if (timeout.deadlineTick() <= currentTick) {
+                    expired.add(timeout.item());
+                } else {
+                    bucket.add(timeout);
+                }
+            }
+        }
+        processedTick = Math.max(processedTick, currentTick);
+        return expired;
+    }
+}
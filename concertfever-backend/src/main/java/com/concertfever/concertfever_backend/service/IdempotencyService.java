@@ -0,0 +1,214 @@
+package com.concertfever.concertfever_backend.service;
+
+import com.concertfever.concertfever_backend.entities.IdempotencyKey;
+import com.concertfever.concertfever_backend.repository.IdempotencyKeyRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Service making retried requests with the same {@code Idempotency-Key} execute only once.
+ * <p>
+ * Every key maps to a future holding the response of the first request that used it. Duplicates arriving while
+ * that request is still running wait on the future; later duplicates are answered from it directly. The futures
+ * live in a bounded in-memory cache for fast lookups and are backed by the {@code idempotency_key} table, which
+ * claims a key across nodes and keeps responses across restarts until they expire.
+ * </p>
+ * <p>
+ * A claim without a response is a lease. If the node holding it crashes, the key is taken over by the first retry
+ * after the lease has run out, instead of being stuck until it expires. Expired keys are taken over the same way.
+ * </p>
+ * <p>
+ * Only definitive outcomes are remembered. Server errors and requests that were turned away before running
+ * (429 and 503) release the key, so the client can retry them.
+ * </p>
+ */
+@Service
+public class IdempotencyService {
+
+    public static final int MAX_KEY_LENGTH = 100;
+    private static final int MAX_RESPONSE_LENGTH = 1000;
+
+    private record StoredResponse(String requestHash, int statusCode, String body) {
+    }
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final Duration keyTtl;
+    private final long waitTimeoutMs;
+    private final long leaseMs;
+
+    private final Cache<String, CompletableFuture<StoredResponse>> responsesByKey;
+
+    /**
+     * Constructs an instance of {@link IdempotencyService}.
+     *
+     * @param idempotencyKeyRepository The repository for accessing stored idempotency keys.
+     * @param keyTtlHours              How long a key and its response are remembered.
+     * @param maxCachedKeys            The maximum number of keys kept in memory.
+     * @param waitTimeoutMs            How long a duplicate waits for the first request to finish.
+     * @param leaseMs                  How long a claim without a response blocks the key before a retry may take it over.
+     */
+    public IdempotencyService(IdempotencyKeyRepository idempotencyKeyRepository,
+                              @Value("${concertfever.idempotency.key-ttl-hours:24}") long keyTtlHours,
+                              @Value("${concertfever.idempotency.max-cached-keys:100000}") long maxCachedKeys,
+                              @Value("${concertfever.idempotency.wait-timeout-ms:30000}") long waitTimeoutMs,
+                              @Value("${concertfever.idempotency.lease-ms:120000}") long leaseMs) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.keyTtl = Duration.ofHours(keyTtlHours);
+        this.waitTimeoutMs = waitTimeoutMs;
+        this.leaseMs = leaseMs;
+        this.responsesByKey = Caffeine.newBuilder()
+                .maximumSize(maxCachedKeys)
+                .expireAfterWrite(keyTtl)
+                .build();
+    }
+
+    /**
+     * Executes a request at most once per idempotency key.
+     *
+     * @param idempotencyKey The key sent by the client.
+     * @param request        The request body. Reusing a key for a different body is rejected.
+     * @param execution      Executes the request and produces its response.
+     * @return The response of the first request that used the key.
+     */
+    public ResponseEntity<String> execute(String idempotencyKey, Object request, Supplier<ResponseEntity<String>> execution) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            return new ResponseEntity<>("Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters",
+                    HttpStatus.BAD_REQUEST);
+        }
+        String requestHash = hash(String.valueOf(request));
+
+        CompletableFuture<StoredResponse> future = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> existing = responsesByKey.asMap().putIfAbsent(idempotencyKey, future);
+        if (existing != null) {
+            return awaitDuplicate(existing, requestHash);
+        }
+
+        // Truncated to the column's precision, as the claim time identifies the claim
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        int claimed;
+        try {
+            claimed = idempotencyKeyRepository.insertIfAbsent(idempotencyKey, requestHash, now, now.plus(keyTtl));
+            if (claimed == 0) {
+                claimed = idempotencyKeyRepository.takeOverIfStale(idempotencyKey, requestHash, now, now.plus(keyTtl),
+                        now.minus(leaseMs, ChronoUnit.MILLIS));
+            }
+        } catch (RuntimeException e) {
+            responsesByKey.asMap().remove(idempotencyKey, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+        if (claimed == 0) {
+            // Claimed before this node saw it: by another node, or before a restart
+            return replayStored(idempotencyKey, future, requestHash);
+        }
+
+        ResponseEntity<String> response;
+        try {
+            response = execution.get();
+        } catch (RuntimeException e) {
+            forget(idempotencyKey, now, future);
+            throw e;
+        }
+        int statusCode = response.getStatusCode().value();
+        if (!isDefinitive(statusCode)) {
+            forget(idempotencyKey, now, future);
+            return response;
+        }
+        String body = truncate(response.getBody());
+        idempotencyKeyRepository.saveResponse(idempotencyKey, now, statusCode, body);
+        future.complete(new StoredResponse(requestHash, statusCode, body));
+        return response;
+    }
+
+    /**
+     * Deletes expired keys from the database.
+     */
+    @Scheduled(fixedDelayString = "${concertfever.idempotency.cleanup-interval-ms:3600000}")
+    public void deleteExpiredKeys() {
+        idempotencyKeyRepository.deleteExpired(LocalDateTime.now());
+    }
+
+    // Helper Method
+    private ResponseEntity<String> awaitDuplicate(CompletableFuture<StoredResponse> existing, String requestHash) {
+        try {
+            return toResponse(existing.get(waitTimeoutMs, TimeUnit.MILLISECONDS), requestHash);
+        } catch (TimeoutException e) {
+            return new ResponseEntity<>("A request with this Idempotency-Key is still being processed", HttpStatus.CONFLICT);
+        } catch (ExecutionException e) {
+            // The first request did not produce a definitive response; ask the client to retry
+            return new ResponseEntity<>("The original request with this Idempotency-Key failed. Please retry", HttpStatus.CONFLICT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new ResponseEntity<>("Interrupted while waiting for the original request", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    // Helper Method
+    private ResponseEntity<String> replayStored(String idempotencyKey, CompletableFuture<StoredResponse> future, String requestHash) {
+        IdempotencyKey stored = idempotencyKeyRepository.findById(idempotencyKey).orElse(null);
+        if (stored == null || stored.getStatusCode() == null) {
+            // Still running elsewhere, or released in the meantime: do not let this node cache an answer
+            responsesByKey.asMap().remove(idempotencyKey, future);
+            future.completeExceptionally(new IllegalStateException("Idempotency key not settled"));
+            return new ResponseEntity<>("A request with this Idempotency-Key is still being processed", HttpStatus.CONFLICT);
+        }
+        StoredResponse response = new StoredResponse(stored.getRequestHash(), stored.getStatusCode(), stored.getResponseBody());
+        future.complete(response);
+        return toResponse(response, requestHash);
+    }
+
+    // Helper Method
+    private void forget(String idempotencyKey, LocalDateTime claimedAt, CompletableFuture<StoredResponse> future) {
+        idempotencyKeyRepository.release(idempotencyKey, claimedAt);
+        responsesByKey.asMap().remove(idempotencyKey, future);
+        future.completeExceptionally(new IllegalStateException("Request did not complete"));
+    }
+
+    // Helper Method
+    private static ResponseEntity<String> toResponse(StoredResponse response, String requestHash) {
+        if (!response.requestHash().equals(requestHash)) {
+            return new ResponseEntity<>("Idempotency-Key was already used for a different request", HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+        return ResponseEntity.status(response.statusCode()).header("Idempotent-Replayed", "true").body(response.body());
+    }
+
+    // Helper Method
+    private static boolean isDefinitive(int statusCode) {
+        return statusCode < 500 && statusCode != HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    // Helper Method
+    private static String truncate(String body) {
+        if (body == null || body.length() <= MAX_RESPONSE_LENGTH) {
+            return body;
+        }
+        return body.substring(0, MAX_RESPONSE_LENGTH);
+    }
+
+    // Helper Method
+    private static String hash(String request) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(request.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.concertfever.concertfever_backend.service;
+
+import java.util.Set;
+
+/**
+ * Application event published when ticket inventory of one or more events has changed.
+ * Listeners should use {@link org.springframework.transaction.event.TransactionalEventListener} so they only
+ * react once the change has been committed.
+ *
+ * @param eventIds The IDs of the events whose ticket categories were changed.
+ */
+public record InventoryChangedEvent(Set<Integer> eventIds) {
+}
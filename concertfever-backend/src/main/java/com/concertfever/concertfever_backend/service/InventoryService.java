@@ -0,0 +1,146 @@
+package com.concertfever.concertfever_backend.service;
+
+import com.concertfever.concertfever_backend.entities.TicketCategoryId;
+import com.concertfever.concertfever_backend.repository.TicketCategoryRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Service for reserving and releasing ticket inventory.
+ * <p>
+ * Inventory is changed with guarded conditional updates ({@code remaining_quantity >= n}) instead of
+ * read-modify-write, so concurrent buyers never oversell and only hold each row lock for the rest of
+ * their transaction. Categories are always updated in the same order to rule out deadlocks between carts.
+ * </p>
+ * <p>
+ * In flash-sale mode, categories of flash-sale events are reserved in the {@link FlashSaleInventoryLedger}
+ * instead, and only written to the database in batches once the reserving transaction has committed.
+ * </p>
+ */
+@Service
+public class InventoryService {
+
+    // Row locks are always taken in (eventId, ticketCategory) order
+    public static final Comparator<TicketCategoryId> LOCK_ORDER = Comparator
+            .comparing(TicketCategoryId::getEventId)
+            .thenComparing(TicketCategoryId::getTicketCategory);
+
+    private final TicketCategoryRepository ticketCategoryRepository;
+    private final FlashSaleInventoryLedger flashSaleInventoryLedger;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Constructs an instance of {@link InventoryService}.
+     *
+     * @param ticketCategoryRepository The repository for accessing ticket category data.
+     * @param flashSaleInventoryLedger The in-memory ledger holding the inventory of flash-sale events.
+     * @param eventPublisher           The publisher used to announce released ticket inventory.
+     */
+    public InventoryService(TicketCategoryRepository ticketCategoryRepository, FlashSaleInventoryLedger flashSaleInventoryLedger,
+                            ApplicationEventPublisher eventPublisher) {
+        this.ticketCategoryRepository = ticketCategoryRepository;
+        this.flashSaleInventoryLedger = flashSaleInventoryLedger;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Reserves the given quantities within the caller's transaction. Each ticket category is updated once.
+     * If any category does not have enough tickets left, an exception is thrown and the caller's transaction
+     * rolls back every reservation made so far.
+     *
+     * @param quantities The number of tickets to reserve per ticket category.
+     * @throws IllegalStateException if a ticket category does not have enough tickets remaining.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reserve(Map<TicketCategoryId, Integer> quantities) {
+        Map<TicketCategoryId, Integer> ledgerQuantities = new HashMap<>();
+        Map<TicketCategoryId, Integer> databaseQuantities = new HashMap<>();
+        quantities.forEach((id, quantity) ->
+                (flashSaleInventoryLedger.manages(id) ? ledgerQuantities : databaseQuantities).put(id, quantity));
+
+        if (!ledgerQuantities.isEmpty()) {
+            flashSaleInventoryLedger.reserve(ledgerQuantities);
+            // Only committed purchases reach the database; rolled back ones give their tickets back
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        flashSaleInventoryLedger.commit(ledgerQuantities);
+                    } else {
+                        flashSaleInventoryLedger.release(ledgerQuantities);
+                    }
+                }
+            });
+        }
+
+        for (Map.Entry<TicketCategoryId, Integer> entry : inLockOrder(databaseQuantities).entrySet()) {
+            TicketCategoryId id = entry.getKey();
+            int updated = ticketCategoryRepository.decrementRemainingQuantity(id.getEventId(), id.getTicketCategory(), entry.getValue());
+            if (updated == 0) {
+                throw new IllegalStateException("Not enough tickets remaining for event " + id.getEventId()
+                        + " category " + id.getTicketCategory());
+            }
+        }
+    }
+
+    /**
+     * Returns previously reserved quantities to the inventory.
+     * <p>
+     * Runs in its own transaction, as it is also called once a purchasing transaction has already completed.
+     * </p>
+     *
+     * @param quantities The number of tickets to release per ticket category.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void release(Map<TicketCategoryId, Integer> quantities) {
+        releaseInTransaction(quantities);
+    }
+
+    /**
+     * Returns previously reserved quantities to the inventory within the caller's transaction, so they are only
+     * returned if the caller commits, e.g. together with deleting the hold that reserved them.
+     *
+     * @param quantities The number of tickets to release per ticket category.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void releaseInTransaction(Map<TicketCategoryId, Integer> quantities) {
+        Set<Integer> eventIds = new HashSet<>();
+        Map<TicketCategoryId, Integer> ledgerQuantities = new HashMap<>();
+        for (Map.Entry<TicketCategoryId, Integer> entry : inLockOrder(quantities).entrySet()) {
+            TicketCategoryId id = entry.getKey();
+            eventIds.add(id.getEventId());
+            if (flashSaleInventoryLedger.manages(id)) {
+                ledgerQuantities.put(id, entry.getValue());
+                continue;
+            }
+            ticketCategoryRepository.incrementRemainingQuantity(id.getEventId(), id.getTicketCategory(), entry.getValue());
+        }
+        if (!ledgerQuantities.isEmpty()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    flashSaleInventoryLedger.restock(ledgerQuantities);
+                }
+            });
+        }
+        eventPublisher.publishEvent(new InventoryChangedEvent(eventIds));
+    }
+
+    // Helper Method
+    private static Map<TicketCategoryId, Integer> inLockOrder(Map<TicketCategoryId, Integer> quantities) {
+        Map<TicketCategoryId, Integer> ordered = new TreeMap<>(LOCK_ORDER);
+        ordered.putAll(quantities);
+        return ordered;
+    }
+}
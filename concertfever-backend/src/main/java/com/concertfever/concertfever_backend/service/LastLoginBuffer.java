@@ -0,0 +1,122 @@
+package com.concertfever.concertfever_backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind buffer for the last login date of users.
+ * <p>
+ * The last login is a date, so it changes at most once per day and user. Logins only record the date in memory;
+ * repeated logins of the same user are coalesced, and logins on a day that was already written are dropped.
+ * Changed dates are written to {@code user_confidential} in periodic JDBC batches and once more on shutdown.
+ * The update only touches {@code id_last_login} and never moves it backwards, so it neither conflicts with
+ * balance updates nor needs the optimistic version. A login that had not been flushed when a node crashes is lost,
+ * which only leaves the previous login date in place.
+ * </p>
+ */
+@Service
+public class LastLoginBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(LastLoginBuffer.class);
+
+    private static final String UPDATE_LAST_LOGIN_SQL =
+            "UPDATE user_confidential SET id_last_login = ? WHERE user_id = ? AND id_last_login < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    // Login dates not yet written to the database
+    private final Map<Integer, LocalDate> pendingByUserId = new ConcurrentHashMap<>();
+    // Login dates known to be in the database, so further logins on the same day are not written again
+    private final Cache<Integer, LocalDate> writtenByUserId;
+
+    /**
+     * Constructs an instance of {@link LastLoginBuffer}.
+     *
+     * @param jdbcTemplate        The JDBC template used for batched write-behind.
+     * @param transactionTemplate The template used to run each flush in its own transaction.
+     * @param batchSize           The maximum number of rows per JDBC batch.
+     * @param maxTrackedUsers     The maximum number of users whose written login date is remembered.
+     */
+    public LastLoginBuffer(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                           @Value("${concertfever.last-login.batch-size:500}") int batchSize,
+                           @Value("${concertfever.last-login.max-tracked-users:100000}") long maxTrackedUsers) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.writtenByUserId = Caffeine.newBuilder()
+                .maximumSize(maxTrackedUsers)
+                .expireAfterWrite(Duration.ofDays(1))
+                .build();
+    }
+
+    /**
+     * Records that a user logged in today. The date is written by the next flush unless it is already stored.
+     *
+     * @param userId The ID of the user.
+     */
+    public void record(Integer userId) {
+        LocalDate today = LocalDate.now();
+        if (today.equals(writtenByUserId.getIfPresent(userId))) {
+            return;
+        }
+        pendingByUserId.merge(userId, today, LastLoginBuffer::later);
+    }
+
+    /**
+     * Writes all pending login dates to the database in JDBC batches.
+     */
+    @Scheduled(fixedDelayString = "${concertfever.last-login.flush-interval-ms:5000}")
+    @PreDestroy
+    public void flush() {
+        Map<Integer, LocalDate> drained = new HashMap<>();
+        for (Integer userId : pendingByUserId.keySet()) {
+            LocalDate date = pendingByUserId.remove(userId);
+            if (date != null) {
+                drained.put(userId, date);
+            }
+        }
+        if (drained.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> batch = new ArrayList<>(drained.size());
+        drained.forEach((userId, date) -> batch.add(new Object[]{Date.valueOf(date), userId, Date.valueOf(date)}));
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPDATE_LAST_LOGIN_SQL, batch, batchSize,
+                    (ps, row) -> {
+                        ps.setDate(1, (Date) row[0]);
+                        ps.setInt(2, (Integer) row[1]);
+                        ps.setDate(3, (Date) row[2]);
+                    }));
+            writtenByUserId.putAll(drained);
+        } catch (RuntimeException e) {
+            // Put the dates back so the next flush retries them, unless a later login replaced them
+            drained.forEach((userId, date) -> pendingByUserId.merge(userId, date, LastLoginBuffer::later));
+            logger.warn("Last login flush of {} users failed, will retry", drained.size(), e);
+        }
+    }
+
+    // Helper Method
+    private static LocalDate later(LocalDate a, LocalDate b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
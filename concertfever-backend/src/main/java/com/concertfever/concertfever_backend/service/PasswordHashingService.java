@@ -0,0 +1,132 @@
+package com.concertfever.concertfever_backend.service;
+
+import com.concertfever.concertfever_backend.config.AsyncConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Service running BCrypt hashing and verification on a dedicated, bounded executor.
+ * <p>
+ * Request threads hand the work over and wait for it. Because both the executor's threads and its queue are
+ * bounded, at most that many request threads can be tied up by password work. Anything beyond is rejected
+ * immediately with a {@link RejectedExecutionException}, so a login storm cannot take the threads serving the
+ * catalog and purchases. Hashing time, queueing time and rejections are published as Micrometer metrics.
+ * </p>
+ */
+@Service
+public class PasswordHashingService {
+
+    private final BCryptPasswordEncoder passwordEncoder;
+    private final ThreadPoolTaskExecutor passwordHashingExecutor;
+    private final long timeoutMs;
+
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Timer queueWaitTimer;
+    private final Counter rejectedCounter;
+
+    /**
+     * Constructs an instance of {@link PasswordHashingService}.
+     *
+     * @param passwordEncoder         The BCrypt encoder, configured with the current cost factor.
+     * @param passwordHashingExecutor The bounded executor the hashing runs on.
+     * @param meterRegistry           The registry the hashing metrics are published to.
+     * @param timeoutMs               How long a request waits for its hashing before giving up.
+     */
+    public PasswordHashingService(BCryptPasswordEncoder passwordEncoder,
+                                  @Qualifier(AsyncConfig.PASSWORD_HASHING_EXECUTOR) ThreadPoolTaskExecutor passwordHashingExecutor,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${concertfever.password-hashing.timeout-ms:5000}") long timeoutMs) {
+        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.timeoutMs = timeoutMs;
+        this.encodeTimer = Timer.builder("concertfever.password.hash").tag("operation", "encode")
+                .description("Time spent computing BCrypt hashes").publishPercentileHistogram().register(meterRegistry);
+        this.matchesTimer = Timer.builder("concertfever.password.hash").tag("operation", "matches")
+                .description("Time spent computing BCrypt hashes").publishPercentileHistogram().register(meterRegistry);
+        this.queueWaitTimer = Timer.builder("concertfever.password.hash.queue")
+                .description("Time password hashing waited for a free thread").register(meterRegistry);
+        this.rejectedCounter = Counter.builder("concertfever.password.hash.rejected")
+                .description("Password hashing requests rejected because the executor was saturated").register(meterRegistry);
+        Gauge.builder("concertfever.password.hash.queue.depth", passwordHashingExecutor,
+                        executor -> executor.getThreadPoolExecutor().getQueue().size())
+                .description("Password hashing requests waiting for a free thread").register(meterRegistry);
+    }
+
+    /**
+     * Hashes a raw password with the configured cost factor.
+     *
+     * @param rawPassword The password to hash.
+     * @return The BCrypt hash.
+     * @throws RejectedExecutionException if the executor is saturated or the hashing timed out.
+     */
+    public String encode(CharSequence rawPassword) {
+        return run(encodeTimer, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * Verifies a raw password against a stored hash.
+     *
+     * @param rawPassword     The password to verify.
+     * @param encodedPassword The stored BCrypt hash.
+     * @return {@code true} if the password matches.
+     * @throws RejectedExecutionException if the executor is saturated or the verification timed out.
+     */
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(matchesTimer, () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Checks whether a stored hash was created with a lower cost factor than the configured one.
+     * This only parses the hash and runs on the calling thread.
+     *
+     * @param encodedPassword The stored BCrypt hash.
+     * @return {@code true} if the password should be rehashed.
+     */
+    public boolean upgradeEncoding(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    // Helper Method
+    private <T> T run(Timer timer, Callable<T> hashing) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = passwordHashingExecutor.submit(() -> {
+                queueWaitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                return timer.recordCallable(hashing);
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new RejectedExecutionException("Too many password requests. Please try again shortly", e);
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejectedCounter.increment();
+            throw new RejectedExecutionException("Password request timed out. Please try again shortly", e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.concertfever.concertfever_backend.service;
+
+/**
+ * The authenticated user of a request, as carried by a verified session token.
+ *
+ * @param userId The ID of the user.
+ * @param email  The email of the user.
+ */
+public record SessionPrincipal(Integer userId, String email) {
+
+    /**
+     * Checks whether a request parameter refers to this user.
+     *
+     * @param email The email passed with the request.
+     * @return {@code true} if the email is this user's, ignoring case.
+     */
+    public boolean hasEmail(String email) {
+        return this.email.equalsIgnoreCase(email);
+    }
+}
@@ -0,0 +1,135 @@
+package com.concertfever.concertfever_backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Service issuing and verifying stateless session tokens.
+ * <p>
+ * A token is {@code base64url(userId:expiresAtEpochSeconds:email)} followed by a dot and the base64url HMAC-SHA256
+ * of that payload. Verifying it only takes one HMAC computation, so authenticated requests need neither BCrypt
+ * nor a database lookup to identify the user. All nodes must share the same secret; if none is configured, a
+ * random one is generated and tokens only stay valid until the application restarts.
+ * </p>
+ */
+@Service
+public class SessionTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionTokenService.class);
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+    private final long ttlSeconds;
+    // Mac instances are not thread-safe
+    private final ThreadLocal<Mac> macs;
+
+    /**
+     * Constructs an instance of {@link SessionTokenService}.
+     *
+     * @param secret     The base64-encoded HMAC secret, at least 32 bytes. Generated randomly if empty.
+     * @param ttlMinutes How long an issued token stays valid.
+     */
+    public SessionTokenService(@Value("${concertfever.security.token-secret:}") String secret,
+                               @Value("${concertfever.security.token-ttl-minutes:60}") long ttlMinutes) {
+        byte[] secretBytes;
+        if (secret.isBlank()) {
+            logger.warn("No concertfever.security.token-secret configured, session tokens will not survive a restart");
+            secretBytes = new byte[32];
+            new SecureRandom().nextBytes(secretBytes);
+        } else {
+            secretBytes = Base64.getDecoder().decode(secret);
+            if (secretBytes.length < 32) {
+                throw new IllegalArgumentException("concertfever.security.token-secret must be at least 32 bytes");
+            }
+        }
+        this.key = new SecretKeySpec(secretBytes, HMAC_ALGORITHM);
+        this.ttlSeconds = ttlMinutes * 60;
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+    /**
+     * Issues a token for a user.
+     *
+     * @param userId The ID of the user.
+     * @param email  The email of the user.
+     * @return The signed token and when it expires.
+     */
+    public IssuedToken issue(Integer userId, String email) {
+        long expiresAt = Instant.now().getEpochSecond() + ttlSeconds;
+        String payload = encode((userId + ":" + expiresAt + ":" + email).getBytes(StandardCharsets.UTF_8));
+        String token = payload + "." + encode(sign(payload));
+        return new IssuedToken(token, LocalDateTime.ofInstant(Instant.ofEpochSecond(expiresAt), ZoneId.systemDefault()));
+    }
+
+    /**
+     * Verifies a token.
+     *
+     * @param token The token presented by the client.
+     * @return The user the token was issued to, or empty if the token is malformed, forged or expired.
+     */
+    public Optional<SessionPrincipal> verify(String token) {
+        int dot = token.indexOf('.');
+        if (dot <= 0) {
+            return Optional.empty();
+        }
+        String payload = token.substring(0, dot);
+        try {
+            byte[] signature = Base64.getUrlDecoder().decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(signature, sign(payload))) {
+                return Optional.empty();
+            }
+            String[] fields = new String(Base64.getUrlDecoder().decode(payload), StandardCharsets.UTF_8).split(":", 3);
+            if (fields.length != 3 || Long.parseLong(fields[1]) < Instant.now().getEpochSecond()) {
+                return Optional.empty();
+            }
+            return Optional.of(new SessionPrincipal(Integer.valueOf(fields[0]), fields[2]));
+        } catch (IllegalArgumentException e) {
+            // Not base64 or not a number: treat like any other invalid token
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * A signed token together with its expiry.
+     *
+     * @param token     The token to send as {@code Authorization: Bearer <token>}.
+     * @param expiresAt When the token expires.
+     */
+    public record IssuedToken(String token, LocalDateTime expiresAt) {
+    }
+
+    // Helper Method
+    private byte[] sign(String payload) {
+        return macs.get().doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    // Helper Method
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+
+    // Helper Method
+    private static String encode(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
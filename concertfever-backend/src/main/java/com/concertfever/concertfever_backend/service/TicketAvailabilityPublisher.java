@@ -0,0 +1,337 @@
+package com.concertfever.concertfever_backend.service;
+
+import com.concertfever.concertfever_backend.config.AsyncConfig;
+import com.concertfever.concertfever_backend.dto.TicketAvailabilityDto;
+import com.concertfever.concertfever_backend.entities.TicketCategory;
+import com.concertfever.concertfever_backend.repository.TicketCategoryRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Service pushing live ticket availability to clients over Server-Sent Events.
+ * <p>
+ * Committed inventory changes only mark the affected events as dirty. A scheduled task then loads the ticket
+ * categories of all dirty events in one query, works out which categories changed since the last push and
+ * sends each subscriber of the event the same pre-serialized delta. Many purchases within one push interval
+ * are therefore coalesced into a single message, however many clients are subscribed.
+ * </p>
+ * <p>
+ * Messages are not written on the scheduler thread. Each subscriber has its own queue, and the subscribers that were
+ * sent a message are drained in batches on the availability push executor, one task per batch rather than per
+ * subscriber, so the number of queued tasks is bounded by the subscriber limit. A client falling too far behind is
+ * disconnected and has to resubscribe for a fresh snapshot. If the executor is saturated, messages simply stay queued
+ * until the next push drains them. Idle streams get a periodic heartbeat comment, so proxies and load balancers do
+ * not close them between sales.
+ * </p>
+ */
+@Service
+public class TicketAvailabilityPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(TicketAvailabilityPublisher.class);
+
+    private final TicketCategoryRepository ticketCategoryRepository;
+    private final ObjectMapper objectMapper;
+    private final TaskExecutor availabilityPushExecutor;
+    private final long emitterTimeoutMs;
+    private final int maxPendingMessages;
+    private final int maxSubscribers;
+    private final int pushBatchSize;
+
+    private final Map<Integer, List<Subscriber>> subscribersByEventId = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    // eventId -> (ticketCategory -> remainingQuantity) last pushed to subscribers
+    private final Map<Integer, Map<Character, Integer>> lastPushedByEventId = new ConcurrentHashMap<>();
+    private final Set<Integer> dirtyEventIds = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Constructs an instance of {@link TicketAvailabilityPublisher}.
+     *
+     * @param ticketCategoryRepository The repository for accessing ticket category data.
+     * @param objectMapper             The application's Jackson object mapper.
+     * @param availabilityPushExecutor The executor writing messages to the subscribers.
+     * @param emitterTimeoutMs         How long a subscription stays open before the client has to reconnect.
+     * @param maxPendingMessages       How many unsent messages a subscriber may fall behind before it is disconnected.
+     * @param maxSubscribers           How many subscriptions may be open at the same time.
+     * @param pushBatchSize            How many subscribers a single push task writes to.
+     */
+    public TicketAvailabilityPublisher(TicketCategoryRepository ticketCategoryRepository, ObjectMapper objectMapper,
+                                       @Qualifier(AsyncConfig.AVAILABILITY_PUSH_EXECUTOR) TaskExecutor availabilityPushExecutor,
+                                       @Value("${concertfever.availability.emitter-timeout-ms:1800000}") long emitterTimeoutMs,
+                                       @Value("${concertfever.availability.max-pending-messages:50}") int maxPendingMessages,
+                                       @Value("${concertfever.availability.max-subscribers:20000}") int maxSubscribers,
+                                       @Value("${concertfever.availability.push-batch-size:200}") int pushBatchSize) {
+        this.ticketCategoryRepository = ticketCategoryRepository;
+        this.objectMapper = objectMapper;
+        this.availabilityPushExecutor = availabilityPushExecutor;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.maxPendingMessages = maxPendingMessages;
+        this.maxSubscribers = maxSubscribers;
+        this.pushBatchSize = pushBatchSize;
+    }
+
+    /**
+     * Subscribes a client to availability updates of an event.
+     * The current availability of every ticket category is sent immediately as a {@code snapshot} message,
+     * followed by {@code availability} messages containing only the categories that changed.
+     *
+     * @param eventId The ID of the event to subscribe to.
+     * @return The {@link SseEmitter} streaming the updates.
+     * @throws IOException if the initial snapshot could not be sent.
+     * @throws RejectedExecutionException if the maximum number of subscriptions is already open.
+     */
+    public SseEmitter subscribe(Integer eventId) throws IOException {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new RejectedExecutionException("Too many clients are streaming ticket availability, please try again later");
+        }
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(eventId, emitter);
+        // Updates are only queued until the snapshot has been sent, so they cannot overtake it
+        subscriber.draining.set(true);
+        List<Subscriber> subscribers = subscribersByEventId.computeIfAbsent(eventId, id -> new CopyOnWriteArrayList<>());
+        subscribers.add(subscriber);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+
+        List<TicketAvailabilityDto> snapshot = ticketCategoryRepository.findAllByEventIds(List.of(eventId)).stream()
+                .map(TicketAvailabilityPublisher::toAvailability)
+                .toList();
+        // Seed the baseline for deltas without overwriting the one existing subscribers were last sent
+        Map<Character, Integer> lastPushed = lastPushedByEventId.computeIfAbsent(eventId, id -> new ConcurrentHashMap<>());
+        snapshot.forEach(availability -> lastPushed.putIfAbsent(availability.ticketCategory(), availability.remainingQuantity()));
+        try {
+            emitter.send(SseEmitter.event().name("snapshot").data(serialize(snapshot), MediaType.APPLICATION_JSON));
+        } catch (IOException | RuntimeException e) {
+            subscriber.draining.set(false);
+            throw e;
+        }
+        // Updates queued while the snapshot was being sent are written on the request thread
+        drain(subscriber);
+        return emitter;
+    }
+
+    /**
+     * Marks the changed events as dirty once an inventory change has been committed.
+     *
+     * @param inventoryChangedEvent The event describing which events had their ticket categories changed.
+     */
+    @TransactionalEventListener
+    public void onInventoryChanged(InventoryChangedEvent inventoryChangedEvent) {
+        for (Integer eventId : inventoryChangedEvent.eventIds()) {
+            if (subscribersByEventId.containsKey(eventId)) {
+                dirtyEventIds.add(eventId);
+            }
+        }
+    }
+
+    /**
+     * Pushes the coalesced availability changes of all dirty events to their subscribers.
+     */
+    @Scheduled(fixedDelayString = "${concertfever.availability.push-interval-ms:500}")
+    public void pushPendingChanges() {
+        if (dirtyEventIds.isEmpty()) {
+            return;
+        }
+        Set<Integer> eventIds = new HashSet<>();
+        for (Integer eventId : dirtyEventIds) {
+            dirtyEventIds.remove(eventId);
+            eventIds.add(eventId);
+        }
+
+        Map<Integer, List<TicketAvailabilityDto>> currentByEventId = new HashMap<>();
+        for (TicketCategory ticketCategory : ticketCategoryRepository.findAllByEventIds(eventIds)) {
+            currentByEventId.computeIfAbsent(ticketCategory.getTicketCategoryId().getEventId(), id -> new ArrayList<>())
+                    .add(toAvailability(ticketCategory));
+        }
+
+        List<Subscriber> recipients = new ArrayList<>();
+        for (Map.Entry<Integer, List<TicketAvailabilityDto>> entry : currentByEventId.entrySet()) {
+            List<TicketAvailabilityDto> changes = collectChanges(entry.getKey(), entry.getValue());
+            if (!changes.isEmpty()) {
+                broadcast(entry.getKey(), serialize(changes), recipients);
+            }
+        }
+        scheduleDrains(recipients);
+    }
+
+    /**
+     * Sends a heartbeat comment to every subscriber, so idle streams are not closed by proxies or load balancers.
+     */
+    @Scheduled(fixedDelayString = "${concertfever.availability.heartbeat-interval-ms:15000}")
+    public void sendHeartbeats() {
+        List<Subscriber> recipients = new ArrayList<>();
+        for (List<Subscriber> subscribers : subscribersByEventId.values()) {
+            for (Subscriber subscriber : subscribers) {
+                if (enqueue(subscriber, SseEmitter.event().comment("heartbeat"))) {
+                    recipients.add(subscriber);
+                }
+            }
+        }
+        scheduleDrains(recipients);
+    }
+
+    // Helper Method
+    // Compares the current availability with the last pushed one and remembers what is pushed now
+    private List<TicketAvailabilityDto> collectChanges(Integer eventId, List<TicketAvailabilityDto> current) {
+        Map<Character, Integer> lastPushed = lastPushedByEventId.computeIfAbsent(eventId, id -> new ConcurrentHashMap<>());
+        List<TicketAvailabilityDto> changes = new ArrayList<>();
+        for (TicketAvailabilityDto availability : current) {
+            Integer previous = lastPushed.put(availability.ticketCategory(), availability.remainingQuantity());
+            if (!availability.remainingQuantity().equals(previous)) {
+                changes.add(availability);
+            }
+        }
+        return changes;
+    }
+
+    // Helper Method
+    private void broadcast(Integer eventId, String payload, List<Subscriber> recipients) {
+        List<Subscriber> subscribers = subscribersByEventId.get(eventId);
+        if (subscribers == null) {
+            return;
+        }
+        for (Subscriber subscriber : subscribers) {
+            if (enqueue(subscriber, SseEmitter.event().name("availability").data(payload, MediaType.APPLICATION_JSON))) {
+                recipients.add(subscriber);
+            }
+        }
+    }
+
+    // Helper Method
+    // Returns false if the subscriber had fallen too far behind and was disconnected instead
+    private boolean enqueue(Subscriber subscriber, SseEmitter.SseEventBuilder message) {
+        if (subscriber.pendingCount.incrementAndGet() > maxPendingMessages) {
+            disconnect(subscriber, null);
+            return false;
+        }
+        subscriber.pending.add(message);
+        return true;
+    }
+
+    // Helper Method
+    // Submits one task per batch of subscribers instead of one per subscriber
+    private void scheduleDrains(List<Subscriber> recipients) {
+        for (int from = 0; from < recipients.size(); from += pushBatchSize) {
+            List<Subscriber> batch = recipients.subList(from, Math.min(from + pushBatchSize, recipients.size()));
+            try {
+                availabilityPushExecutor.execute(() -> batch.forEach(this::tryDrain));
+            } catch (RejectedExecutionException e) {
+                // The messages stay queued and are written by the next push that gets through
+                logger.warn("Availability push executor is saturated, delaying {} subscribers", recipients.size() - from);
+                return;
+            }
+        }
+    }
+
+    // Helper Method
+    // Makes sure exactly one thread at a time writes the subscriber's messages, in the order they were queued
+    private void tryDrain(Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            drain(subscriber);
+        }
+    }
+
+    // Helper Method
+    // Must only be called by the thread that set the subscriber's draining flag
+    private void drain(Subscriber subscriber) {
+        do {
+            try {
+                SseEmitter.SseEventBuilder message;
+                while ((message = subscriber.pending.poll()) != null) {
+                    subscriber.pendingCount.decrementAndGet();
+                    subscriber.emitter.send(message);
+                }
+            } catch (IOException | IllegalStateException e) {
+                subscriber.draining.set(false);
+                disconnect(subscriber, e);
+                return;
+            }
+            subscriber.draining.set(false);
+            // A message queued after the last poll but before the flag was cleared is picked up here
+        } while (!subscriber.pending.isEmpty() && subscriber.draining.compareAndSet(false, true));
+    }
+
+    // Helper Method
+    private void disconnect(Subscriber subscriber, Exception cause) {
+        logger.debug("Dropping availability subscriber of event {}", subscriber.eventId, cause);
+        unsubscribe(subscriber);
+        subscriber.pending.clear();
+        try {
+            subscriber.emitter.complete();
+        } catch (IllegalStateException e) {
+            // Already completed
+        }
+    }
+
+    // Helper Method
+    private void unsubscribe(Subscriber subscriber) {
+        subscribersByEventId.computeIfPresent(subscriber.eventId, (id, subscribers) -> {
+            if (subscribers.remove(subscriber)) {
+                subscriberCount.decrementAndGet();
+            }
+            if (subscribers.isEmpty()) {
+                lastPushedByEventId.remove(id);
+                return null;
+            }
+            return subscribers;
+        });
+    }
+
+    // A client's stream together with the messages not yet written to it
+    private static final class Subscriber {
+        private final Integer eventId;
+        private final SseEmitter emitter;
+        private final Queue<SseEmitter.SseEventBuilder> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private Subscriber(Integer eventId, SseEmitter emitter) {
+            this.eventId = eventId;
+            this.emitter = emitter;
+        }
+    }
+
+    // Helper Method
+    private String serialize(List<TicketAvailabilityDto> availability) {
+        try {
+            return objectMapper.writeValueAsString(availability);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize ticket availability", e);
+        }
+    }
+
+    // Helper Method
+    private static TicketAvailabilityDto toAvailability(TicketCategory ticketCategory) {
+        return new TicketAvailabilityDto(
+                ticketCategory.getTicketCategoryId().getEventId(),
+                ticketCategory.getTicketCategoryId().getTicketCategory(),
+                ticketCategory.getRemainingQuantity()
+        );
+    }
+}
@@ -0,0 +1,66 @@
+package com.concertfever.concertfever_backend.service;
+
+import com.concertfever.concertfever_backend.dto.TicketAvailabilityDto;
+import com.concertfever.concertfever_backend.dto.TicketAvailabilitySnapshotDto;
+import com.concertfever.concertfever_backend.repository.TicketCategoryRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Service holding an in-memory snapshot of the remaining quantity of every ticket category.
+ * <p>
+ * The snapshot is rebuilt from a single aggregated query once per refresh interval and shared by all clients,
+ * so the database load does not grow with the number of clients polling for availability.
+ * </p>
+ */
+@Service
+public class TicketAvailabilitySnapshotService {
+
+    private final TicketCategoryRepository ticketCategoryRepository;
+
+    private volatile TicketAvailabilitySnapshotDto snapshot;
+
+    /**
+     * Constructs an instance of {@link TicketAvailabilitySnapshotService}.
+     *
+     * @param ticketCategoryRepository The repository for accessing ticket category data.
+     */
+    public TicketAvailabilitySnapshotService(TicketCategoryRepository ticketCategoryRepository) {
+        this.ticketCategoryRepository = ticketCategoryRepository;
+    }
+
+    /**
+     * Retrieves the current availability snapshot, building it first if no refresh has run yet.
+     *
+     * @return The current {@link TicketAvailabilitySnapshotDto}.
+     */
+    public TicketAvailabilitySnapshotDto getSnapshot() {
+        TicketAvailabilitySnapshotDto current = snapshot;
+        if (current == null) {
+            refresh();
+            current = snapshot;
+        }
+        return current;
+    }
+
+    /**
+     * Rebuilds the snapshot from the database.
+     */
+    @Scheduled(fixedDelayString = "${concertfever.availability.snapshot-refresh-interval-ms:5000}")
+    public void refresh() {
+        List<TicketAvailabilityDto> rows = ticketCategoryRepository.findAllAvailability();
+        int[] eventIds = new int[rows.size()];
+        char[] ticketCategories = new char[rows.size()];
+        int[] remainingQuantities = new int[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            TicketAvailabilityDto row = rows.get(i);
+            eventIds[i] = row.eventId();
+            ticketCategories[i] = row.ticketCategory();
+            remainingQuantities[i] = row.remainingQuantity();
+        }
+        snapshot = new TicketAvailabilitySnapshotDto(LocalDateTime.now(), eventIds, ticketCategories, remainingQuantities);
+    }
+}
@@ -0,0 +1,292 @@
+package com.concertfever.concertfever_backend.service;
+
+import com.concertfever.concertfever_backend.dto.HoldTicketsDto;
+import com.concertfever.concertfever_backend.dto.TicketHoldDto;
+import com.concertfever.concertfever_backend.dto.TicketHoldItemDto;
+import com.concertfever.concertfever_backend.entities.TicketCategoryId;
+import com.concertfever.concertfever_backend.entities.TicketHold;
+import com.concertfever.concertfever_backend.entities.TicketHoldId;
+import com.concertfever.concertfever_backend.repository.TicketHoldRepository;
+import com.concertfever.concertfever_backend.repository.UserRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Service for holding ticket inventory for a user for a limited time while they complete their purchase.
+ * <p>
+ * Creating a hold reserves the requested quantities through the {@link InventoryService}, exactly like a purchase
+ * does, so held tickets cannot be sold to anyone else. The hold is stored in the {@code ticket_hold} table in the
+ * same transaction, so a reservation never outlives its hold, not even across restarts. A purchase referencing the
+ * hold deletes it and converts it into tickets without reserving the inventory again.
+ * </p>
+ * <p>
+ * Holds that are neither purchased nor released are found by a {@link HashedTimerWheel}, which only touches the holds
+ * that are actually due and never scans the database. The wheel is rebuilt from the {@code ticket_hold} table on
+ * startup. An expiring hold only returns its tickets to the inventory if its rows are still there to be deleted, so
+ * holds that were purchased or released in the meantime are ignored.
+ * </p>
+ */
+@Service
+public class TicketHoldService {
+
+    private static final int WHEEL_SIZE = 1024;
+
+    private final UserRepository userRepository;
+    private final TicketHoldRepository ticketHoldRepository;
+    private final InventoryService inventoryService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final long holdDurationMinutes;
+    private final int maxTicketsPerHold;
+    private final int maxActiveHoldsPerUser;
+    private final int expiryBatchSize;
+    private final HashedTimerWheel<String> expiryWheel;
+
+    /**
+     * Constructs an instance of {@link TicketHoldService}.
+     *
+     * @param userRepository        The repository for accessing user data.
+     * @param ticketHoldRepository  The repository for accessing ticket holds.
+     * @param inventoryService      The service for reserving and releasing ticket inventory.
+     * @param eventPublisher        The publisher used to announce ticket inventory changes.
+     * @param transactionTemplate   The template used to expire each batch of holds in its own transaction.
+     * @param holdDurationMinutes   How long a hold lasts before it expires.
+     * @param maxTicketsPerHold     The maximum number of tickets a single hold may contain.
+     * @param maxActiveHoldsPerUser The maximum number of holds a user may have at the same time.
+     * @param expiryBatchSize       The maximum number of holds expired per transaction.
+     * @param tickMs                The granularity at which holds expire.
+     */
+    public TicketHoldService(UserRepository userRepository, TicketHoldRepository ticketHoldRepository, InventoryService inventoryService,
+                             ApplicationEventPublisher eventPublisher, TransactionTemplate transactionTemplate,
+                             @Value("${concertfever.hold.duration-minutes:10}") long holdDurationMinutes,
+                             @Value("${concertfever.hold.max-tickets:10}") int maxTicketsPerHold,
+                             @Value("${concertfever.hold.max-active-per-user:2}") int maxActiveHoldsPerUser,
+                             @Value("${concertfever.hold.expiry-batch-size:500}") int expiryBatchSize,
+                             @Value("${concertfever.hold.tick-ms:1000}") long tickMs) {
+        this.userRepository = userRepository;
+        this.ticketHoldRepository = ticketHoldRepository;
+        this.inventoryService = inventoryService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.holdDurationMinutes = holdDurationMinutes;
+        this.maxTicketsPerHold = maxTicketsPerHold;
+        this.maxActiveHoldsPerUser = maxActiveHoldsPerUser;
+        this.expiryBatchSize = expiryBatchSize;
+        this.expiryWheel = new HashedTimerWheel<>(tickMs, WHEEL_SIZE, System.currentTimeMillis());
+    }
+
+    /**
+     * Holds tickets for a user.
+     *
+     * @param holdTicketsDto The data transfer object containing the user ID and the quantities to hold.
+     * @return A {@link TicketHoldDto} with the ID of the hold and when it expires.
+     * @throws EntityNotFoundException if the user is not found.
+     * @throws IllegalArgumentException if the requested quantities are empty, not positive or exceed the maximum per hold.
+     * @throws IllegalStateException if the user already has the maximum number of active holds, or a ticket category
+     *                               does not have enough tickets remaining.
+     */
+    @Transactional
+    public TicketHoldDto holdTickets(HoldTicketsDto holdTicketsDto) {
+        Map<TicketCategoryId, Integer> quantities = toQuantities(holdTicketsDto);
+        Integer userId = holdTicketsDto.userId();
+        // Locking the user's row keeps concurrent requests of the same user from exceeding the cap together
+        if (userRepository.lockUserId(userId) == null) {
+            throw new EntityNotFoundException("User not found");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (ticketHoldRepository.countActiveHoldsByUserId(userId, now) >= maxActiveHoldsPerUser) {
+            throw new IllegalStateException("You may hold tickets at most " + maxActiveHoldsPerUser
+                    + " times at once. Purchase or release a hold first");
+        }
+
+        inventoryService.reserve(quantities);
+        eventPublisher.publishEvent(new InventoryChangedEvent(eventIdsOf(quantities)));
+
+        String holdId = UUID.randomUUID().toString();
+        LocalDateTime expiresAt = now.plusMinutes(holdDurationMinutes);
+        List<TicketHold> rows = new ArrayList<>(quantities.size());
+        quantities.forEach((id, quantity) -> rows.add(new TicketHold(
+                new TicketHoldId(holdId, id.getEventId(), id.getTicketCategory()), userId, quantity, expiresAt)));
+        ticketHoldRepository.saveAll(rows);
+        // A hold that is rolled back has nothing to expire
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                expiryWheel.schedule(holdId, toEpochMs(expiresAt));
+            }
+        });
+        return new TicketHoldDto(holdId, expiresAt);
+    }
+
+    /**
+     * Releases a hold before it expires and returns its tickets to the inventory.
+     *
+     * @param holdId The ID of the hold.
+     * @param userId The ID of the user owning the hold.
+     * @throws EntityNotFoundException if the hold is not found, has expired or belongs to another user.
+     */
+    @Transactional
+    public void releaseHold(String holdId, Integer userId) {
+        Map<TicketCategoryId, Integer> held = claim(holdId, userId);
+        inventoryService.releaseInTransaction(held);
+    }
+
+    /**
+     * Converts a hold into part of a purchase.
+     * <p>
+     * The hold is deleted within the purchasing transaction, so it is back in place if the purchase rolls back.
+     * Held tickets that are not purchased are returned to the inventory in the same transaction.
+     * </p>
+     *
+     * @param holdId     The ID of the hold.
+     * @param userId     The ID of the user owning the hold.
+     * @param quantities The number of tickets being purchased per ticket category.
+     * @return The quantities that are not covered by the hold and still have to be reserved.
+     * @throws EntityNotFoundException if the hold is not found, has expired or belongs to another user.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<TicketCategoryId, Integer> consumeHold(String holdId, Integer userId, Map<TicketCategoryId, Integer> quantities) {
+        Map<TicketCategoryId, Integer> held = claim(holdId, userId);
+
+        Map<TicketCategoryId, Integer> uncovered = new HashMap<>();
+        quantities.forEach((id, quantity) -> {
+            int missing = quantity - held.getOrDefault(id, 0);
+            if (missing > 0) {
+                uncovered.put(id, missing);
+            }
+        });
+        Map<TicketCategoryId, Integer> surplus = new HashMap<>();
+        held.forEach((id, heldQuantity) -> {
+            int unused = heldQuantity - quantities.getOrDefault(id, 0);
+            if (unused > 0) {
+                surplus.put(id, unused);
+            }
+        });
+        if (!surplus.isEmpty()) {
+            inventoryService.releaseInTransaction(surplus);
+        }
+        return uncovered;
+    }
+
+    /**
+     * Schedules the expiry of every hold stored in the database, including those that expired while the
+     * application was down.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildExpiryWheel() {
+        // Holds created since startup may be scheduled twice, the second expiry finds nothing left to delete
+        for (Object[] deadline : ticketHoldRepository.findHoldDeadlines()) {
+            expiryWheel.schedule((String) deadline[0], toEpochMs((LocalDateTime) deadline[1]));
+        }
+    }
+
+    /**
+     * Deletes the holds that are due according to the timer wheel and returns their tickets to the inventory.
+     */
+    @Scheduled(fixedRateString = "${concertfever.hold.tick-ms:1000}")
+    public void expireHolds() {
+        List<String> due = expiryWheel.advance(System.currentTimeMillis());
+        for (int from = 0; from < due.size(); from += expiryBatchSize) {
+            List<String> batch = due.subList(from, Math.min(from + expiryBatchSize, due.size()));
+            transactionTemplate.executeWithoutResult(status -> expireBatch(batch));
+        }
+    }
+
+    // Helper Method
+    private void expireBatch(List<String> holdIds) {
+        List<TicketHold> rows = ticketHoldRepository.lockByHoldIds(holdIds);
+        LocalDateTime now = LocalDateTime.now();
+        Set<String> expiredHoldIds = new HashSet<>();
+        Map<String, LocalDateTime> pending = new HashMap<>();
+        Map<TicketCategoryId, Integer> quantities = new HashMap<>();
+        for (TicketHold row : rows) {
+            if (row.getExpiresAt().isAfter(now)) {
+                pending.put(row.getTicketHoldId().getHoldId(), row.getExpiresAt());
+            } else {
+                expiredHoldIds.add(row.getTicketHoldId().getHoldId());
+                quantities.merge(row.getTicketCategoryId(), row.getQuantity(), Integer::sum);
+            }
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                // Wheel ticks are coarser than the stored deadlines, and a failed batch is retried on the next tick
+                pending.forEach((holdId, expiresAt) -> expiryWheel.schedule(holdId, toEpochMs(expiresAt)));
+                if (status != STATUS_COMMITTED) {
+                    expiredHoldIds.forEach(holdId -> expiryWheel.schedule(holdId, System.currentTimeMillis()));
+                }
+            }
+        });
+        // Deleting the rows is what releases the tickets; holds that are already gone were purchased or released
+        if (!expiredHoldIds.isEmpty() && ticketHoldRepository.deleteByHoldIds(expiredHoldIds) > 0) {
+            inventoryService.releaseInTransaction(quantities);
+        }
+    }
+
+    // Helper Method
+    // Deletes a hold within the current transaction and returns its quantities
+    private Map<TicketCategoryId, Integer> claim(String holdId, Integer userId) {
+        List<TicketHold> rows = holdId == null ? List.of() : ticketHoldRepository.lockByHoldId(holdId);
+        LocalDateTime now = LocalDateTime.now();
+        // Expired holds are left to the expiry job, which returns their tickets
+        if (rows.isEmpty() || !rows.get(0).getUserId().equals(userId) || !rows.get(0).getExpiresAt().isAfter(now)) {
+            throw new EntityNotFoundException("Hold not found or expired");
+        }
+        Map<TicketCategoryId, Integer> held = new HashMap<>();
+        rows.forEach(row -> held.merge(row.getTicketCategoryId(), row.getQuantity(), Integer::sum));
+        ticketHoldRepository.deleteAll(rows);
+        return held;
+    }
+
+    // Helper Method
+    private Map<TicketCategoryId, Integer> toQuantities(HoldTicketsDto holdTicketsDto) {
+        if (holdTicketsDto.items() == null || holdTicketsDto.items().isEmpty()) {
+            throw new IllegalArgumentException("No tickets to hold");
+        }
+        Map<TicketCategoryId, Integer> quantities = new HashMap<>();
+        int totalTickets = 0;
+        for (TicketHoldItemDto item : holdTicketsDto.items()) {
+            if (item.quantity() == null || item.quantity() <= 0) {
+                throw new IllegalArgumentException("Quantity must be positive");
+            }
+            quantities.merge(new TicketCategoryId(item.eventId(), item.ticketCategory()), item.quantity(), Integer::sum);
+            totalTickets += item.quantity();
+        }
+        if (totalTickets > maxTicketsPerHold) {
+            throw new IllegalArgumentException("A hold may contain at most " + maxTicketsPerHold + " tickets");
+        }
+        return quantities;
+    }
+
+    // Helper Method
+    private static Set<Integer> eventIdsOf(Map<TicketCategoryId, Integer> quantities) {
+        Set<Integer> eventIds = new HashSet<>();
+        quantities.keySet().forEach(id -> eventIds.add(id.getEventId()));
+        return eventIds;
+    }
+
+    // Helper Method
+    private static long toEpochMs(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
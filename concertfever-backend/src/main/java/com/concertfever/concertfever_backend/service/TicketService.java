@@ -6,14 +6,27 @@ import com.concertfever.concertfever_backend.dto.TicketDto;
 import com.concertfever.concertfever_backend.dto.TicketRequestDto;
 import com.concertfever.concertfever_backend.entities.*;
 import com.concertfever.concertfever_backend.repository.*;
-import jakarta.mail.MessagingException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Service for handling ticket-related operations such as retrieving tickets, ticket categories, and purchasing tickets.
@@ -28,6 +41,11 @@ public class TicketService {
     private final DiscountCouponRepository discountCouponRepository;
     private final TicketCategoryRepository ticketCategoryRepository;
     private final EmailService emailService;
+    private final InventoryService inventoryService;
+    private final TicketHoldService ticketHoldService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final UserLookupService userLookupService;
 
     private final LocalDate TODAY = LocalDate.now();
 
@@ -40,9 +58,17 @@ public class TicketService {
      * @param eventRepository          The repository for accessing event data.
      * @param discountCouponRepository The repository for accessing discount coupon data.
      * @param ticketCategoryRepository The repository for accessing ticket category data.
+     * @param emailService             The service for queueing the purchase confirmation email.
+     * @param inventoryService         The service for reserving ticket inventory.
+     * @param ticketHoldService        The service for converting ticket holds into purchases.
+     * @param eventPublisher           The publisher used to announce ticket inventory changes.
+     * @param objectMapper             The application's Jackson object mapper, used to stream tickets.
+     * @param userLookupService        The service resolving emails to user IDs through a cache.
      */
     public TicketService(TicketRepository ticketRepository, UserRepository userRepository, UserConfidentialRepository confidentialRepository, EventRepository eventRepository,
-                         DiscountCouponRepository discountCouponRepository, TicketCategoryRepository ticketCategoryRepository, EmailService emailService) {
+                         DiscountCouponRepository discountCouponRepository, TicketCategoryRepository ticketCategoryRepository, EmailService emailService,
+                         InventoryService inventoryService, TicketHoldService ticketHoldService, ApplicationEventPublisher eventPublisher,
+                         ObjectMapper objectMapper, UserLookupService userLookupService) {
         this.ticketRepository = ticketRepository;
         this.userRepository = userRepository;
         this.confidentialRepository = confidentialRepository;
@@ -50,22 +76,49 @@ public class TicketService {
         this.discountCouponRepository = discountCouponRepository;
         this.ticketCategoryRepository = ticketCategoryRepository;
         this.emailService = emailService;
+        this.inventoryService = inventoryService;
+        this.ticketHoldService = ticketHoldService;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.userLookupService = userLookupService;
     }
 
     /**
-     * Retrieves all tickets associated with a user identified by email.
+     * Retrieves the ID of a user identified by email.
      *
-     * @param email The email of the user whose tickets are to be retrieved.
-     * @return A list of {@link TicketDto} objects representing the tickets for the user.
+     * @param email The email of the user.
+     * @return The ID of the user.
      * @throws EntityNotFoundException if the user is not found.
      */
-    public List<TicketDto> getAllTicketsByUserEmail(String email) {
-        User user = userRepository.findByEmail(email);
-        if (user == null) {
-            throw new EntityNotFoundException("User not found");
+    public Integer getUserIdByEmail(String email) {
+        return userLookupService.getUserIdByEmail(email);
+    }
+
+    /**
+     * Writes all tickets of a user to the given stream as a JSON array.
+     * <p>
+     * Tickets are read as a stream with a JDBC fetch size and written one by one, so memory use does not grow
+     * with the number of tickets the user holds.
+     * </p>
+     *
+     * @param userId The ID of the user whose tickets are to be written.
+     * @param out    The stream to write the JSON array to. It is flushed but not closed.
+     * @throws IOException if writing to the stream fails.
+     */
+    @Transactional(readOnly = true)
+    public void writeTicketsByUserId(Integer userId, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (Stream<TicketDto> tickets = ticketRepository.streamByUserId(userId);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                     .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            generator.writeStartArray();
+            Iterator<TicketDto> iterator = tickets.iterator();
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, iterator.next());
+            }
+            generator.writeEndArray();
+            generator.flush();
         }
-        Integer userId = user.getUserId();
-        return ticketRepository.findByUserId(userId);
     }
 
     /**
@@ -80,52 +133,74 @@ public class TicketService {
 
     /**
      * Processes the purchase of tickets for a user, including updating the user's balance.
+     * If the purchase references a hold, the held tickets are used instead of reserving them again.
      *
-     * @param purchaseTicketsDto The data transfer object containing purchase details, including user ID, coupon ID, and ticket requests.
-     * @throws EntityNotFoundException if the user, coupon, event, or ticket category is not found.
+     * @param purchaseTicketsDto The data transfer object containing purchase details, including user ID, coupon ID, ticket requests and an optional hold ID.
+     * @throws EntityNotFoundException if the user, coupon, event, ticket category or hold is not found.
+     * @throws IllegalStateException if a ticket category does not have enough tickets remaining.
      */
     @Transactional
-    public void purchaseTickets(PurchaseTicketsDto purchaseTicketsDto) throws MessagingException {
+    public void purchaseTickets(PurchaseTicketsDto purchaseTicketsDto) {
         User user = userRepository.findById(purchaseTicketsDto.userId())
                 .orElseThrow(() -> new EntityNotFoundException("User not found"));
 
-        UserConfidential userConfidential = confidentialRepository.findById(purchaseTicketsDto.userId()).get();
-
-        // Check if user has sufficient balance for purchase
         BigDecimal totalCartPrice = BigDecimal.ZERO;
         for(TicketRequestDto ticketDto : purchaseTicketsDto.tickets()){
             totalCartPrice = totalCartPrice.add(ticketDto.finalPrice());
         }
 
-        BigDecimal userAccountBalance = userConfidential.getAccountBalance();
-
-        if (userAccountBalance.compareTo(totalCartPrice) < 0){
-            throw new EntityNotFoundException("User account balance is less than total cart price");
-        }
-
         DiscountCoupon coupon = discountCouponRepository.findById(purchaseTicketsDto.couponId())
                 .orElseThrow(() -> new EntityNotFoundException("Coupon not found"));
 
+        // Load every event and ticket category referenced by the cart with one query each
+        Set<Integer> purchasedEventIds = new HashSet<>();
+        for (TicketRequestDto ticketDto : purchaseTicketsDto.tickets()) {
+            purchasedEventIds.add(ticketDto.eventId());
+        }
+        Map<Integer, Event> eventsById = new HashMap<>();
+        eventRepository.findAllById(purchasedEventIds).forEach(event -> eventsById.put(event.getEventId(), event));
+        // findAllById would load composite IDs one by one, so fetch the categories of the cart's events instead
+        Map<TicketCategoryId, TicketCategory> ticketCategoriesById = new HashMap<>();
+        ticketCategoryRepository.findAllByEventIds(purchasedEventIds)
+                .forEach(ticketCategory -> ticketCategoriesById.put(ticketCategory.getTicketCategoryId(), ticketCategory));
+
+        List<Ticket> tickets = new ArrayList<>(purchaseTicketsDto.tickets().size());
         for (TicketRequestDto ticketDto : purchaseTicketsDto.tickets()) {
-            Event event = eventRepository.findById(ticketDto.eventId())
-                    .orElseThrow(() -> new EntityNotFoundException("Event not found"));
+            Event event = eventsById.get(ticketDto.eventId());
+            if (event == null) {
+                throw new EntityNotFoundException("Event not found");
+            }
 
             TicketCategoryId ticketCategoryId = new TicketCategoryId(ticketDto.eventId(), ticketDto.ticketCategory());
-            TicketCategory ticketCategoryChar = ticketCategoryRepository.findById(ticketCategoryId)
-                    .orElseThrow(() -> new EntityNotFoundException("Ticket Category not found"));
+            TicketCategory ticketCategoryChar = ticketCategoriesById.get(ticketCategoryId);
+            if (ticketCategoryChar == null) {
+                throw new EntityNotFoundException("Ticket Category not found");
+            }
 
             Character ticketCategory = ticketCategoryChar.getTicketCategoryId().getTicketCategory();
 
-            // Create and save the new ticket
-            Ticket ticket = new Ticket(event, user, coupon, ticketCategory, ticketDto.finalPrice(), TODAY);
-            ticketRepository.save(ticket);
+            // Create the new ticket
+            tickets.add(new Ticket(event, user, coupon, ticketCategory, ticketDto.finalPrice(), TODAY));
+        }
+
+        // Save all tickets in one JDBC batch
+        ticketRepository.saveAll(tickets);
 
-            // Update user balance
-            BigDecimal currentBalance = userConfidential.getAccountBalance();
-            BigDecimal newBalance = currentBalance.subtract(ticketDto.finalPrice());
-            userConfidential.setAccountBalance(newBalance);
-            confidentialRepository.save(userConfidential);
+        // Reserve the inventory, grouped so every ticket category in the cart is updated exactly once
+        Map<TicketCategoryId, Integer> quantities = countTicketsByCategory(purchaseTicketsDto.tickets());
+        if (purchaseTicketsDto.holdId() != null) {
+            quantities = ticketHoldService.consumeHold(purchaseTicketsDto.holdId(), purchaseTicketsDto.userId(), quantities);
         }
+        inventoryService.reserve(quantities);
+
+        // Debit the cart total in one guarded update, so concurrent purchases and top-ups cannot lose each other's changes.
+        // Done last, so the user's row is only locked for the remainder of the transaction
+        if (confidentialRepository.debitAccountBalance(purchaseTicketsDto.userId(), totalCartPrice) == 0) {
+            throw new EntityNotFoundException("User account balance is less than total cart price");
+        }
+
+        // Cached catalog entries of these events are invalidated once the purchase commits
+        eventPublisher.publishEvent(new InventoryChangedEvent(purchasedEventIds));
 
         //Send Email
         String emailId = user.getEmail();
@@ -135,9 +210,7 @@ public class TicketService {
         StringBuilder tableRows = new StringBuilder();
         int sequence = 0; // index number
         for (TicketRequestDto ticketDto : purchaseTicketsDto.tickets()) {
-            Event event = eventRepository.findById(ticketDto.eventId())
-                    .orElseThrow(() -> new EntityNotFoundException("Event not found"));
-            String eventName = event.getEventName();
+            String eventName = eventsById.get(ticketDto.eventId()).getEventName();
             Character ticketCategory = ticketDto.ticketCategory();
             sequence++;
             BigDecimal finalPrice = ticketDto.finalPrice();
@@ -172,6 +245,16 @@ public class TicketService {
                 </table>
                 <p>Login to your account to retrieve ticket details.</p>
                 """, tableRows);
-        emailService.sendHtmlMessage(emailId, subject, htmlBody);
+        // Queued in the outbox with the purchase and delivered in the background once it has committed
+        emailService.queueHtmlMessage(emailId, subject, htmlBody);
+    }
+
+    // Helper Method
+    private static Map<TicketCategoryId, Integer> countTicketsByCategory(List<TicketRequestDto> tickets) {
+        Map<TicketCategoryId, Integer> quantities = new HashMap<>();
+        for (TicketRequestDto ticketDto : tickets) {
+            quantities.merge(new TicketCategoryId(ticketDto.eventId(), ticketDto.ticketCategory()), 1, Integer::sum);
+        }
+        return quantities;
     }
 }
@@ -0,0 +1,424 @@
+package com.concertfever.concertfever_backend.service;
+
+import com.concertfever.concertfever_backend.config.AsyncConfig;
+import com.concertfever.concertfever_backend.dto.BulkImportErrorDto;
+import com.concertfever.concertfever_backend.dto.BulkImportResultDto;
+import com.concertfever.concertfever_backend.dto.NewUserDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Service importing users in bulk, e.g. from partner customer lists.
+ * <p>
+ * Rows are processed in chunks. For every chunk, the rows are validated, emails already used earlier in the import
+ * or by an existing user are found with one set-based query, the passwords are hashed in parallel on a dedicated
+ * fork-join pool, and the {@code user} and {@code user_confidential} rows are written with JDBC batches in one
+ * transaction. Rows that cannot be imported are skipped and reported with their row number; the other rows are
+ * imported regardless. Only one import runs at a time, as each one already uses every core of the hashing pool.
+ * </p>
+ */
+@Service
+public class UserImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserImportService.class);
+
+    private static final String EXISTING_EMAILS_SQL = "SELECT email FROM user WHERE email IN (:emails)";
+    private static final String USER_IDS_SQL = "SELECT user_id, email FROM user WHERE email IN (:emails)";
+    private static final String INSERT_USER_SQL = "INSERT INTO user (first_name, last_name, email) VALUES (?, ?, ?)";
+    private static final String INSERT_CONFIDENTIAL_SQL = """
+            INSERT INTO user_confidential (user_id, id_created_at, id_last_login, password, password_last_changed_at, account_balance)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+    // Maximum column lengths of the user table
+    private static final int MAX_NAME_LENGTH = 50;
+    private static final int MAX_EMAIL_LENGTH = 100;
+
+    private record ImportRow(long row, NewUserDto user) {
+    }
+
+    private record HashedRow(ImportRow row, String encodedPassword) {
+    }
+
+    // State of one import run
+    private final class ImportRun {
+        private final Set<String> seenEmails = new HashSet<>();
+        private final List<BulkImportErrorDto> errors = new ArrayList<>();
+        private long totalRows;
+        private long importedRows;
+        private long failedRows;
+
+        private void fail(long row, String email, String error) {
+            failedRows++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new BulkImportErrorDto(row, email, error));
+            }
+        }
+
+        private BulkImportResultDto toResult() {
+            return new BulkImportResultDto(totalRows, importedRows, failedRows, List.copyOf(errors));
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BCryptPasswordEncoder passwordEncoder;
+    private final ForkJoinPool hashingPool;
+    private final int chunkSize;
+    private final int maxReportedErrors;
+
+    private final ReentrantLock importLock = new ReentrantLock();
+
+    /**
+     * Constructs an instance of {@link UserImportService}.
+     *
+     * @param jdbcTemplate        The JDBC template used for the batched inserts.
+     * @param transactionTemplate The template used to write each chunk in its own transaction.
+     * @param passwordEncoder     The BCrypt encoder, configured with the current cost factor.
+     * @param hashingPool         The fork-join pool the passwords are hashed on.
+     * @param chunkSize           The number of rows validated, hashed and written together.
+     * @param maxReportedErrors   The maximum number of failed rows listed in the result.
+     */
+    public UserImportService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, BCryptPasswordEncoder passwordEncoder,
+                             @Qualifier(AsyncConfig.USER_IMPORT_HASHING_POOL) ForkJoinPool hashingPool,
+                             @Value("${concertfever.user-import.chunk-size:1000}") int chunkSize,
+                             @Value("${concertfever.user-import.max-reported-errors:1000}") int maxReportedErrors) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = transactionTemplate;
+        this.passwordEncoder = passwordEncoder;
+        this.hashingPool = hashingPool;
+        this.chunkSize = chunkSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    /**
+     * Imports a list of users. Rows are numbered from 1 in the order of the list.
+     *
+     * @param users The users to import.
+     * @return A {@link BulkImportResultDto} with the number of imported rows and the rows that failed.
+     * @throws IllegalStateException if another import is already running.
+     */
+    public BulkImportResultDto importUsers(List<NewUserDto> users) {
+        return runExclusively(run -> {
+            List<ImportRow> chunk = new ArrayList<>(chunkSize);
+            for (NewUserDto user : users) {
+                long row = ++run.totalRows;
+                if (user == null) {
+                    run.fail(row, null, "Row is empty");
+                    continue;
+                }
+                chunk.add(new ImportRow(row, user));
+                if (chunk.size() == chunkSize) {
+                    importChunk(run, chunk);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            importChunk(run, chunk);
+        });
+    }
+
+    /**
+     * Imports users from CSV, reading it line by line so the file is never held in memory as a whole.
+     * <p>
+     * The first line is a header naming the columns {@code firstName}, {@code lastName}, {@code email},
+     * {@code password} and optionally {@code accountBalance}, in any order and case, with or without underscores.
+     * Fields may be enclosed in double quotes, but may not span lines. Rows are numbered from 1, not counting the header.
+     * </p>
+     *
+     * @param csv The CSV content.
+     * @return A {@link BulkImportResultDto} with the number of imported rows and the rows that failed.
+     * @throws IllegalArgumentException if the header is missing a required column.
+     * @throws IllegalStateException if another import is already running.
+     * @throws IOException if the CSV could not be read.
+     */
+    public BulkImportResultDto importCsv(Reader csv) throws IOException {
+        try {
+            return runExclusively(run -> importCsvRows(run, new BufferedReader(csv)));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Helper Method
+    private void importCsvRows(ImportRun run, BufferedReader lines) {
+        try {
+            String header = lines.readLine();
+            if (header == null) {
+                throw new IllegalArgumentException("CSV is empty");
+            }
+            Map<String, Integer> columns = parseHeader(header);
+
+            List<ImportRow> chunk = new ArrayList<>(chunkSize);
+            String line;
+            while ((line = lines.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                long row = ++run.totalRows;
+                try {
+                    chunk.add(new ImportRow(row, parseRow(splitCsvLine(line), columns)));
+                } catch (IllegalArgumentException e) {
+                    run.fail(row, null, e.getMessage());
+                }
+                if (chunk.size() == chunkSize) {
+                    importChunk(run, chunk);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            importChunk(run, chunk);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Helper Method
+    private BulkImportResultDto runExclusively(Consumer<ImportRun> body) {
+        if (!importLock.tryLock()) {
+            throw new IllegalStateException("Another bulk import is already running. Please try again later");
+        }
+        try {
+            ImportRun run = new ImportRun();
+            long startedAt = System.currentTimeMillis();
+            body.accept(run);
+            logger.info("Bulk import of {} rows finished in {} ms: {} imported, {} failed",
+                    run.totalRows, System.currentTimeMillis() - startedAt, run.importedRows, run.failedRows);
+            return run.toResult();
+        } finally {
+            importLock.unlock();
+        }
+    }
+
+    // Helper Method
+    private void importChunk(ImportRun run, List<ImportRow> chunk) {
+        List<ImportRow> valid = new ArrayList<>(chunk.size());
+        for (ImportRow row : chunk) {
+            String error = validate(row.user());
+            if (error != null) {
+                run.fail(row.row(), row.user().email(), error);
+            } else if (!run.seenEmails.add(normalize(row.user().email()))) {
+                run.fail(row.row(), row.user().email(), "Duplicate email in import");
+            } else {
+                valid.add(row);
+            }
+        }
+        valid = withoutExistingEmails(run, valid);
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        List<HashedRow> hashed = hash(valid);
+        try {
+            insert(hashed);
+        } catch (DuplicateKeyException e) {
+            // An email was registered concurrently after the check: check again and retry the rest once
+            Set<ImportRow> remaining = new HashSet<>(withoutExistingEmails(run, valid));
+            hashed = hashed.stream().filter(h -> remaining.contains(h.row())).toList();
+            try {
+                insert(hashed);
+            } catch (DuplicateKeyException retryFailure) {
+                hashed.forEach(h -> run.fail(h.row().row(), h.row().user().email(), "Email Address Already Exists"));
+                return;
+            }
+        }
+        run.importedRows += hashed.size();
+    }
+
+    // Helper Method
+    // Fails the rows whose email is already registered and returns the others
+    private List<ImportRow> withoutExistingEmails(ImportRun run, List<ImportRow> rows) {
+        if (rows.isEmpty()) {
+            return rows;
+        }
+        List<String> emails = rows.stream().map(row -> row.user().email().trim()).toList();
+        Set<String> existing = new HashSet<>();
+        namedParameterJdbcTemplate.query(EXISTING_EMAILS_SQL, new MapSqlParameterSource("emails", emails),
+                rs -> {
+                    existing.add(normalize(rs.getString("email")));
+                });
+
+        List<ImportRow> remaining = new ArrayList<>(rows.size());
+        for (ImportRow row : rows) {
+            if (existing.contains(normalize(row.user().email()))) {
+                run.fail(row.row(), row.user().email(), "Email Address Already Exists");
+            } else {
+                remaining.add(row);
+            }
+        }
+        return remaining;
+    }
+
+    // Helper Method
+    private List<HashedRow> hash(List<ImportRow> rows) {
+        try {
+            // A parallel stream started inside the pool runs on the pool's threads instead of the common pool
+            return hashingPool.submit(() -> rows.parallelStream()
+                    .map(row -> new HashedRow(row, passwordEncoder.encode(row.user().password())))
+                    .toList()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing passwords", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    // Helper Method
+    private void insert(List<HashedRow> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Date today = Date.valueOf(LocalDate.now());
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Object[]> users = new ArrayList<>(rows.size());
+            for (HashedRow row : rows) {
+                NewUserDto user = row.row().user();
+                users.add(new Object[]{user.firstName().trim(), user.lastName().trim(), user.email().trim()});
+            }
+            jdbcTemplate.batchUpdate(INSERT_USER_SQL, users);
+
+            // The IDs are generated by the database; read them back in one query instead of per row
+            Map<String, Integer> userIdsByEmail = new HashMap<>();
+            List<String> emails = rows.stream().map(row -> row.row().user().email().trim()).toList();
+            namedParameterJdbcTemplate.query(USER_IDS_SQL, new MapSqlParameterSource("emails", emails),
+                    rs -> {
+                        userIdsByEmail.put(normalize(rs.getString("email")), rs.getInt("user_id"));
+                    });
+
+            List<Object[]> confidentials = new ArrayList<>(rows.size());
+            for (HashedRow row : rows) {
+                NewUserDto user = row.row().user();
+                BigDecimal accountBalance = user.accountBalance() != null ? user.accountBalance() : BigDecimal.ZERO;
+                confidentials.add(new Object[]{userIdsByEmail.get(normalize(user.email())), today, today,
+                        row.encodedPassword(), today, accountBalance});
+            }
+            jdbcTemplate.batchUpdate(INSERT_CONFIDENTIAL_SQL, confidentials);
+        });
+    }
+
+    // Helper Method
+    // Returns the reason a row cannot be imported, or null if it is valid
+    private static String validate(NewUserDto user) {
+        if (isBlank(user.firstName()) || user.firstName().trim().length() > MAX_NAME_LENGTH) {
+            return "First name is required and may have at most " + MAX_NAME_LENGTH + " characters";
+        }
+        if (isBlank(user.lastName()) || user.lastName().trim().length() > MAX_NAME_LENGTH) {
+            return "Last name is required and may have at most " + MAX_NAME_LENGTH + " characters";
+        }
+        if (isBlank(user.email()) || user.email().trim().length() > MAX_EMAIL_LENGTH || !user.email().contains("@")) {
+            return "A valid email with at most " + MAX_EMAIL_LENGTH + " characters is required";
+        }
+        if (isBlank(user.password())) {
+            return "Password is required";
+        }
+        if (user.accountBalance() != null && user.accountBalance().signum() < 0) {
+            return "Account balance may not be negative";
+        }
+        return null;
+    }
+
+    // Helper Method
+    private static Map<String, Integer> parseHeader(String header) {
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = splitCsvLine(header);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).replace("_", "").replace(" ", "").toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : List.of("firstname", "lastname", "email", "password")) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("CSV header is missing the column " + required);
+            }
+        }
+        return columns;
+    }
+
+    // Helper Method
+    private static NewUserDto parseRow(List<String> fields, Map<String, Integer> columns) {
+        String accountBalance = field(fields, columns.get("accountbalance"));
+        BigDecimal balance = null;
+        if (!isBlank(accountBalance)) {
+            try {
+                balance = new BigDecimal(accountBalance.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid account balance: " + accountBalance);
+            }
+        }
+        return new NewUserDto(field(fields, columns.get("firstname")), field(fields, columns.get("lastname")),
+                field(fields, columns.get("email")), field(fields, columns.get("password")), balance);
+    }
+
+    // Helper Method
+    private static String field(List<String> fields, Integer index) {
+        return index != null && index < fields.size() ? fields.get(index) : null;
+    }
+
+    // Helper Method
+    // Splits a CSV line on commas, honouring double-quoted fields and "" escapes
+    private static List<String> splitCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    // Helper Method
+    // Emails are compared case-insensitively by the database
+    private static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Helper Method
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
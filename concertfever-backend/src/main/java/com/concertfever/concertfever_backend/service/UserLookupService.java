@@ -0,0 +1,55 @@
+package com.concertfever.concertfever_backend.service;
+
+import com.concertfever.concertfever_backend.config.CacheConfig;
+import com.concertfever.concertfever_backend.repository.UserRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service resolving user emails to user IDs through a cache.
+ * <p>
+ * Most requests identify the user by email, while everything else is keyed by user ID. Emails are compared
+ * case-insensitively by the database, so they are cached lowercased. Unknown emails are not cached.
+ * </p>
+ */
+@Service
+public class UserLookupService {
+
+    private final UserRepository userRepository;
+
+    /**
+     * Constructs an instance of {@link UserLookupService}.
+     *
+     * @param userRepository The repository for accessing user data.
+     */
+    public UserLookupService(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Retrieves the ID of a user identified by email.
+     *
+     * @param email The email of the user.
+     * @return The ID of the user.
+     * @throws EntityNotFoundException if the user is not found.
+     */
+    @Cacheable(cacheNames = CacheConfig.USER_ID_BY_EMAIL_CACHE, key = "#email.toLowerCase()")
+    public Integer getUserIdByEmail(String email) {
+        Integer userId = userRepository.findUserIdByEmail(email);
+        if (userId == null) {
+            throw new EntityNotFoundException("User not found");
+        }
+        return userId;
+    }
+
+    /**
+     * Removes an email from the cache, e.g. after a user was created or changed.
+     *
+     * @param email The email of the user.
+     */
+    @CacheEvict(cacheNames = CacheConfig.USER_ID_BY_EMAIL_CACHE, key = "#email.toLowerCase()")
+    public void evict(String email) {
+    }
+}
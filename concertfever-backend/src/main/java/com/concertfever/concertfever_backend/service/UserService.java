@@ -1,21 +1,25 @@
 package com.concertfever.concertfever_backend.service;
 
 import com.concertfever.concertfever_backend.dto.ChangeUserPasswordDto;
+import com.concertfever.concertfever_backend.dto.LoginDto;
 import com.concertfever.concertfever_backend.dto.NewUserDto;
+import com.concertfever.concertfever_backend.dto.SessionTokenDto;
 import com.concertfever.concertfever_backend.entities.User;
 import com.concertfever.concertfever_backend.entities.UserConfidential;
 import com.concertfever.concertfever_backend.repository.UserConfidentialRepository;
 import com.concertfever.concertfever_backend.repository.UserRepository;
-import jakarta.mail.MessagingException;
 import jakarta.persistence.EntityNotFoundException;
 import org.apache.coyote.BadRequestException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.security.SecureRandom;
 import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
 
 /**
  * Service for handling user-related operations such as retrieving user details, updating account balance, and managing user passwords.
@@ -23,23 +27,41 @@ import java.time.LocalDate;
 @Service
 public class UserService {
 
-    private final LocalDate TODAY = LocalDate.now();
+    // Attempts for entity updates that lose an optimistic locking race, e.g. against a concurrent balance update
+    private static final int MAX_OPTIMISTIC_ATTEMPTS = 5;
+    private static final long OPTIMISTIC_RETRY_BACKOFF_MS = 5;
+
     private final UserRepository userRepository;
     private final UserConfidentialRepository confidentialRepository;
-    private final BCryptPasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final EmailService emailService;
+    private final TransactionTemplate transactionTemplate;
+    private final SessionTokenService sessionTokenService;
+    private final UserLookupService userLookupService;
+    private final LastLoginBuffer lastLoginBuffer;
 
     /**
      * Constructs an instance of {@link UserService}.
      *
      * @param userRepository         The repository for accessing user data.
      * @param confidentialRepository The repository for accessing user confidential data.
+     * @param passwordHashingService The service hashing and verifying passwords off the request threads.
+     * @param transactionTemplate    The template used to retry updates in a fresh transaction.
+     * @param sessionTokenService    The service issuing session tokens on login.
+     * @param userLookupService      The service resolving emails to user IDs through a cache.
+     * @param lastLoginBuffer        The buffer writing last login dates behind in batches.
      */
-    public UserService(UserRepository userRepository, UserConfidentialRepository confidentialRepository, BCryptPasswordEncoder passwordEncoder, EmailService emailService) {
+    public UserService(UserRepository userRepository, UserConfidentialRepository confidentialRepository, PasswordHashingService passwordHashingService,
+                       EmailService emailService, TransactionTemplate transactionTemplate, SessionTokenService sessionTokenService,
+                       UserLookupService userLookupService, LastLoginBuffer lastLoginBuffer) {
         this.userRepository = userRepository;
         this.confidentialRepository = confidentialRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
         this.emailService = emailService;
+        this.transactionTemplate = transactionTemplate;
+        this.sessionTokenService = sessionTokenService;
+        this.userLookupService = userLookupService;
+        this.lastLoginBuffer = lastLoginBuffer;
     }
 
     /**
@@ -50,11 +72,10 @@ public class UserService {
      * @throws EntityNotFoundException if the user is not found.
      */
     public User getUserByEmail(String email) {
-        User user = userRepository.findByEmail(email);
-        if (user == null) {
-            throw new EntityNotFoundException("User not found");
-        }
-        return user;
+        // The user's confidential data is loaded with it anyway, so fetch both in one query
+        return confidentialRepository.findWithUserByEmail(email)
+                .map(UserConfidential::getUser)
+                .orElseThrow(() -> new EntityNotFoundException("User not found"));
     }
 
     /**
@@ -63,14 +84,36 @@ public class UserService {
      * @param email The email of the user whose password is to be checked.
      * @return The user's password.
      * @throws EntityNotFoundException if the user or password is not found.
+     * @throws java.util.concurrent.RejectedExecutionException if too many passwords are being checked at the moment.
      */
     public boolean checkPassword(String email, String rawPassword) {
-        User user = getUserByEmail(email);
-        UserConfidential userConfidential = confidentialRepository.findById(user.getUserId()).orElseThrow(() -> new EntityNotFoundException("Password not found"));
-        if (userConfidential != null) {
-            return passwordEncoder.matches(rawPassword, userConfidential.getPassword());
+        UserConfidential userConfidential = confidentialRepository.findById(userLookupService.getUserIdByEmail(email))
+                .orElseThrow(() -> new EntityNotFoundException("Password not found"));
+        return verifyPassword(userConfidential, rawPassword);
+    }
+
+    /**
+     * Logs a user in and issues a session token.
+     * <p>
+     * The password is verified once here. Afterwards the client sends the token as {@code Authorization: Bearer <token>},
+     * which identifies the user by a signature check alone, without BCrypt or a user lookup.
+     * </p>
+     *
+     * @param loginDto The data transfer object containing the email and password.
+     * @return A {@link SessionTokenDto} containing the token, the user's ID and when the token expires.
+     * @throws IllegalArgumentException if the email is unknown or the password is wrong.
+     * @throws java.util.concurrent.RejectedExecutionException if too many passwords are being checked at the moment.
+     */
+    public SessionTokenDto login(LoginDto loginDto) {
+        UserConfidential userConfidential = confidentialRepository.findWithUserByEmail(loginDto.email()).orElse(null);
+        // Do not tell unknown emails and wrong passwords apart
+        if (userConfidential == null || !verifyPassword(userConfidential, loginDto.password())) {
+            throw new IllegalArgumentException("Invalid email or password");
         }
-        return false;
+        User user = userConfidential.getUser();
+        lastLoginBuffer.record(user.getUserId());
+        SessionTokenService.IssuedToken token = sessionTokenService.issue(user.getUserId(), user.getEmail());
+        return new SessionTokenDto(token.token(), user.getUserId(), token.expiresAt());
     }
 
     /**
@@ -81,10 +124,22 @@ public class UserService {
      * @throws EntityNotFoundException if the user or account balance is not found.
      */
     public BigDecimal checkAccountBalance(String email) {
-        User user = getUserByEmail(email);
-        UserConfidential userConfidential = confidentialRepository.findById(user.getUserId())
-                .orElseThrow(() -> new EntityNotFoundException("No balance set"));
-        return userConfidential.getAccountBalance();
+        return checkAccountBalanceByUserId(userLookupService.getUserIdByEmail(email));
+    }
+
+    /**
+     * Checks the account balance of a user identified by ID.
+     *
+     * @param userId The ID of the user whose account balance is to be checked.
+     * @return The user's account balance.
+     * @throws EntityNotFoundException if the account balance is not found.
+     */
+    public BigDecimal checkAccountBalanceByUserId(Integer userId) {
+        BigDecimal accountBalance = confidentialRepository.findAccountBalanceByUserId(userId);
+        if (accountBalance == null) {
+            throw new EntityNotFoundException("No balance set");
+        }
+        return accountBalance;
     }
 
     /**
@@ -97,16 +152,25 @@ public class UserService {
      */
     @Transactional
     public String updateAccountBalance(String email, BigDecimal topUp) {
-        User user = getUserByEmail(email);
-        int userId = user.getUserId();
+        return updateAccountBalanceByUserId(userLookupService.getUserIdByEmail(email), topUp);
+    }
 
+    /**
+     * Updates the account balance of a user identified by ID.
+     *
+     * @param userId The ID of the user whose account balance is to be updated.
+     * @param topUp  The amount to add to the user's account balance.
+     * @return A success message if the balance is updated successfully.
+     * @throws RuntimeException if the user is not found or the balance would become negative.
+     */
+    @Transactional
+    public String updateAccountBalanceByUserId(Integer userId, BigDecimal topUp) {
         try {
-            UserConfidential userConfidential = confidentialRepository.findById(userId)
-                    .orElseThrow(() -> new EntityNotFoundException("User data not found"));
-            BigDecimal currentBalance = userConfidential.getAccountBalance();
-            BigDecimal newBalance = currentBalance.add(topUp);
-            userConfidential.setAccountBalance(newBalance);
-            confidentialRepository.save(userConfidential);
+            // Added in one atomic update instead of read-modify-write, so concurrent purchases are not overwritten
+            if (confidentialRepository.creditAccountBalance(userId, topUp) == 0) {
+                throw new EntityNotFoundException("User data not found or balance would become negative");
+            }
+            BigDecimal newBalance = confidentialRepository.findAccountBalanceByUserId(userId);
             return "Account balance updated. New balance: " + newBalance;
         } catch (Exception e) {
             throw new RuntimeException("ERROR: Balance not updated", e);
@@ -120,29 +184,37 @@ public class UserService {
      * @return A success message if the password is updated successfully.
      * @throws EntityNotFoundException if the user is not found.
      */
-    @Transactional
     public String changeUserPassword(ChangeUserPasswordDto changeUserPasswordDto) throws BadRequestException {
         String email = changeUserPasswordDto.email();
         String currentPassword = changeUserPasswordDto.currentPassword();
         String newPassword = changeUserPasswordDto.newPassword();
-        User user = getUserByEmail(email);
-        int userId = user.getUserId();
+        int userId = userLookupService.getUserIdByEmail(email);
 
         UserConfidential userConfidential = confidentialRepository.findById(userId)
                 .orElseThrow(() -> new EntityNotFoundException("User data not found"));
 
         String currentPasswordInDb = userConfidential.getPassword();
 
-        if (!passwordEncoder.matches(currentPassword, currentPasswordInDb)) {
+        if (!passwordHashingService.matches(currentPassword, currentPasswordInDb)) {
             throw new BadRequestException("Passwords do not match");
         }
 
-        String encryptedPassword = passwordEncoder.encode(newPassword);
-
-        userConfidential.setPassword(encryptedPassword);
-        userConfidential.setPasswordLastChangedAt(TODAY);
+        String encryptedPassword = passwordHashingService.encode(newPassword);
 
-        confidentialRepository.save(userConfidential);
+        boolean updated = withOptimisticRetry(userId, () -> {
+            UserConfidential current = confidentialRepository.findById(userId)
+                    .orElseThrow(() -> new EntityNotFoundException("User data not found"));
+            // The password was changed by someone else after it was verified
+            if (!current.getPassword().equals(currentPasswordInDb)) {
+                return false;
+            }
+            current.setPassword(encryptedPassword);
+            current.setPasswordLastChangedAt(LocalDate.now());
+            return true;
+        });
+        if (!updated) {
+            throw new BadRequestException("Passwords do not match");
+        }
         return "Password Updated Successfully";
     }
 
@@ -153,13 +225,21 @@ public class UserService {
      * @return A success message if the login time is updated successfully.
      * @throws EntityNotFoundException if the user or user confidential data is not found.
      */
-    @Transactional
     public String updateUserLoginTime(String email) {
-        User user = getUserByEmail(email);
-        UserConfidential userConfidential = confidentialRepository.findById(user.getUserId())
-                .orElseThrow(() -> new EntityNotFoundException("User data not found"));
-        userConfidential.setIdLastLogin(TODAY);
-        confidentialRepository.save(userConfidential);
+        return updateUserLoginTimeByUserId(userLookupService.getUserIdByEmail(email));
+    }
+
+    /**
+     * Updates the last login time for a user identified by ID.
+     * <p>
+     * The login date is buffered and written to the database in the background, at most once per day and user.
+     * </p>
+     *
+     * @param userId The ID of the user whose login time is to be updated.
+     * @return A success message once the login time has been recorded.
+     */
+    public String updateUserLoginTimeByUserId(Integer userId) {
+        lastLoginBuffer.record(userId);
         return "Login Time Updated Successfully";
     }
 
@@ -173,16 +253,18 @@ public class UserService {
     @Transactional
     public String createUser(NewUserDto userDto) {
         String email = userDto.email();
-        if (userRepository.findByEmail(email) == null) {
+        if (userRepository.findUserIdByEmail(email) == null) {
+            String encodedPassword = passwordHashingService.encode(userDto.password());
+            LocalDate today = LocalDate.now();
+
             User newUser = new User(userDto.firstName(), userDto.lastName(), email);
             User savedUser = userRepository.save(newUser);
 
-            String encodedPassword = passwordEncoder.encode(userDto.password());
-
             UserConfidential userConfidential = new UserConfidential(
-                    savedUser, TODAY, TODAY, encodedPassword, TODAY, userDto.accountBalance()
+                    savedUser, today, today, encodedPassword, today, userDto.accountBalance()
             );
             confidentialRepository.save(userConfidential);
+            userLookupService.evict(email);
 
             return "User Created Successfully";
         } else {
@@ -195,22 +277,19 @@ public class UserService {
      *
      * @param emailId The email of the user requesting a password reset.
      * @return A success message if the password reset email is sent successfully.
-     * @throws MessagingException if there is an error sending the email.
      * @throws EntityNotFoundException if the user is not found.
      */
-    @Transactional
-    public String forgotPassword(String emailId) throws MessagingException {
-        emailId = emailId.toLowerCase();
-        User user = getUserByEmail(emailId);
-        if (user != null) {
-            String tempPassword = generateTempPasswordForUser(emailId);
+    public String forgotPassword(String emailId) {
+        String email = emailId.toLowerCase();
+        // Fails with EntityNotFoundException before anything is written if the user does not exist
+        Integer userId = userLookupService.getUserIdByEmail(email);
+        return withOptimisticRetry(userId, () -> {
+            String tempPassword = generateTempPasswordForUser(email);
             String subject = "ConcertFever Password Reset";
             String htmlBody = "Your temporary password is: <b>" + tempPassword+"</b>";
-            emailService.sendHtmlMessage(emailId, subject, htmlBody);
+            emailService.queueSensitiveHtmlMessage(email, subject, htmlBody);
             return "Password reset successfully. Please check your email for the temporary password.";
-        } else {
-            throw new EntityNotFoundException("User not found");
-        }
+        });
     }
 
     /**
@@ -221,16 +300,12 @@ public class UserService {
      */
     @Transactional
     public String generateTempPasswordForUser(String email) {
-        User user = userRepository.findByEmail(email);
-        UserConfidential userConfidential = confidentialRepository.findById(user.getUserId())
+        UserConfidential userConfidential = confidentialRepository.findById(userLookupService.getUserIdByEmail(email))
                 .orElseThrow(() -> new EntityNotFoundException("User data not found"));
-        if (userConfidential != null) {
-            String tempPassword = generateRandomPassword();
-            userConfidential.setPassword(passwordEncoder.encode(tempPassword));
-            userRepository.save(user);
-            return tempPassword;
-        }
-        throw new RuntimeException("User not found");
+        String tempPassword = generateRandomPassword();
+        // Written by dirty checking when the transaction commits
+        userConfidential.setPassword(passwordHashingService.encode(tempPassword));
+        return tempPassword;
     }
 
     /**
@@ -256,4 +331,61 @@ public class UserService {
         return password.toString();
     }
 
+    // Helper Method
+    // Verifies a password, upgrading its hash if it was created with an outdated cost factor
+    private boolean verifyPassword(UserConfidential userConfidential, String rawPassword) {
+        String storedPassword = userConfidential.getPassword();
+        boolean matches = passwordHashingService.matches(rawPassword, storedPassword);
+        if (matches && passwordHashingService.upgradeEncoding(storedPassword)) {
+            rehashPassword(userConfidential.getUserId(), storedPassword, rawPassword);
+        }
+        return matches;
+    }
+
+    // Helper Method
+    // Replaces a hash created with an outdated cost factor, unless the password was changed in the meantime
+    private void rehashPassword(Integer userId, String storedPassword, String rawPassword) {
+        String upgradedPassword = passwordHashingService.encode(rawPassword);
+        withOptimisticRetry(userId, () -> {
+            confidentialRepository.findById(userId)
+                    .filter(current -> current.getPassword().equals(storedPassword))
+                    .ifPresent(current -> current.setPassword(upgradedPassword));
+            return null;
+        });
+    }
+
+    // Helper Method
+    // Jittered, so racing retries do not collide again
+    private static void backOff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(1, OPTIMISTIC_RETRY_BACKOFF_MS * attempt + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying an update", e);
+        }
+    }
+
+    // Helper Method
+    // Runs an entity update in its own transaction, retrying it from scratch if the row was changed concurrently.
+    // The atomic balance updates bump the version without ever retrying, so under a steady stream of them the last
+    // attempt locks the row first and cannot lose.
+    private <T> T withOptimisticRetry(Integer userId, Supplier<T> update) {
+        for (int attempt = 1; ; attempt++) {
+            boolean lastAttempt = attempt == MAX_OPTIMISTIC_ATTEMPTS;
+            try {
+                return transactionTemplate.execute(status -> {
+                    if (lastAttempt) {
+                        confidentialRepository.lockUserId(userId);
+                    }
+                    return update.get();
+                });
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= MAX_OPTIMISTIC_ATTEMPTS) {
+                    throw e;
+                }
+                backOff(attempt);
+            }
+        }
+    }
+
 }
@@ -0,0 +1,267 @@
+package com.concertfever.concertfever_backend.service;
+
+import com.concertfever.concertfever_backend.dto.QueueStatusDto;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Virtual waiting room controlling admission to ticket purchases.
+ * <p>
+ * Buyers join a FIFO queue per event and receive a token. A scheduled drain admits a fixed number of tokens per
+ * interval from the head of every queue, which caps the rate at which purchases reach the database. Buyers poll
+ * their position and, once admitted, present the token with their purchase within the admission window. On top of
+ * that, the number of purchases running at the same time is limited per event. Queues beyond their maximum length
+ * and purchases beyond the concurrency limit are rejected immediately instead of tying up request threads and
+ * database connections. Queue state is kept in memory and is local to each node.
+ * </p>
+ */
+@Service
+public class WaitingRoomService {
+
+    private static final class QueueEntry {
+        private final String token;
+        private final Integer userId;
+        private final Integer eventId;
+        private final long sequence;
+        private volatile long lastSeenMs;
+        private volatile long admittedUntilMs;
+
+        private QueueEntry(String token, Integer userId, Integer eventId, long sequence, long nowMs) {
+            this.token = token;
+            this.userId = userId;
+            this.eventId = eventId;
+            this.sequence = sequence;
+            this.lastSeenMs = nowMs;
+        }
+
+        private boolean isAdmitted() {
+            return admittedUntilMs > 0;
+        }
+    }
+
+    private static final class EventQueue {
+        private final Queue<QueueEntry> waiting = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger length = new AtomicInteger();
+        private final AtomicLong nextSequence = new AtomicLong();
+        // Sequence of the last entry taken off the head of the queue, used to work out positions
+        private volatile long headSequence = -1;
+        private final Semaphore purchasesInFlight;
+
+        private EventQueue(int maxConcurrentPurchases) {
+            this.purchasesInFlight = new Semaphore(maxConcurrentPurchases);
+        }
+    }
+
+    /**
+     * Admission to run one purchase. Closing the permit frees its slot in the event's concurrency limit.
+     */
+    public final class Permit implements AutoCloseable {
+        private final QueueEntry entry;
+        private final Semaphore semaphore;
+
+        private Permit(QueueEntry entry, Semaphore semaphore) {
+            this.entry = entry;
+            this.semaphore = semaphore;
+        }
+
+        /**
+         * Consumes the admission token once the purchase has succeeded, so it cannot be used again.
+         */
+        public void complete() {
+            if (entry != null) {
+                removeEntry(entry);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (semaphore != null) {
+                semaphore.release();
+            }
+        }
+    }
+
+    private final boolean enabled;
+    private final int admissionsPerInterval;
+    private final int maxConcurrentPurchasesPerEvent;
+    private final int maxQueueLength;
+    private final long admissionWindowMs;
+    private final long abandonTimeoutMs;
+
+    private final Map<Integer, EventQueue> queuesByEventId = new ConcurrentHashMap<>();
+    private final Map<String, QueueEntry> entriesByToken = new ConcurrentHashMap<>();
+    // "userId:eventId" -> token, so joining again returns the existing place in the queue
+    private final Map<String, String> tokensByUserAndEvent = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs an instance of {@link WaitingRoomService}.
+     *
+     * @param enabled                        Whether purchases require an admission token.
+     * @param admissionsPerInterval          How many tokens are admitted per event and drain interval.
+     * @param maxConcurrentPurchasesPerEvent How many purchases may run at the same time per event.
+     * @param maxQueueLength                 The maximum number of buyers waiting per event.
+     * @param admissionWindowMs              How long an admitted token can be used to purchase.
+     * @param abandonTimeoutMs               How long a waiting buyer may go without polling before losing their place.
+     */
+    public WaitingRoomService(@Value("${concertfever.waiting-room.enabled:false}") boolean enabled,
+                              @Value("${concertfever.waiting-room.admissions-per-interval:20}") int admissionsPerInterval,
+                              @Value("${concertfever.waiting-room.max-concurrent-purchases-per-event:10}") int maxConcurrentPurchasesPerEvent,
+                              @Value("${concertfever.waiting-room.max-queue-length:100000}") int maxQueueLength,
+                              @Value("${concertfever.waiting-room.admission-window-ms:120000}") long admissionWindowMs,
+                              @Value("${concertfever.waiting-room.abandon-timeout-ms:60000}") long abandonTimeoutMs) {
+        this.enabled = enabled;
+        this.admissionsPerInterval = admissionsPerInterval;
+        this.maxConcurrentPurchasesPerEvent = maxConcurrentPurchasesPerEvent;
+        this.maxQueueLength = maxQueueLength;
+        this.admissionWindowMs = admissionWindowMs;
+        this.abandonTimeoutMs = abandonTimeoutMs;
+    }
+
+    /**
+     * Places a buyer at the end of an event's queue, or returns their existing place if they already joined.
+     *
+     * @param eventId The ID of the event the buyer wants to purchase tickets for.
+     * @param userId  The ID of the buyer.
+     * @return A {@link QueueStatusDto} with the buyer's token and position.
+     * @throws RejectedExecutionException if the queue of the event is full.
+     */
+    public QueueStatusDto joinQueue(Integer eventId, Integer userId) {
+        String key = userId + ":" + eventId;
+        String existingToken = tokensByUserAndEvent.get(key);
+        if (existingToken != null) {
+            QueueEntry existing = entriesByToken.get(existingToken);
+            if (existing != null) {
+                return toStatus(existing);
+            }
+        }
+
+        EventQueue queue = queuesByEventId.computeIfAbsent(eventId, id -> new EventQueue(maxConcurrentPurchasesPerEvent));
+        if (queue.length.incrementAndGet() > maxQueueLength) {
+            queue.length.decrementAndGet();
+            throw new RejectedExecutionException("The waiting room for this event is full. Please try again later");
+        }
+        QueueEntry entry = new QueueEntry(UUID.randomUUID().toString(), userId, eventId,
+                queue.nextSequence.getAndIncrement(), System.currentTimeMillis());
+        entriesByToken.put(entry.token, entry);
+        tokensByUserAndEvent.put(key, entry.token);
+        queue.waiting.add(entry);
+        return toStatus(entry);
+    }
+
+    /**
+     * Retrieves the current position of a token. Polling also keeps a waiting buyer's place in the queue.
+     *
+     * @param token The token returned when joining the queue.
+     * @return A {@link QueueStatusDto} with the position, or the admission window once the token has been admitted.
+     * @throws EntityNotFoundException if the token is unknown, has expired or was abandoned.
+     */
+    public QueueStatusDto getQueueStatus(String token) {
+        QueueEntry entry = entriesByToken.get(token);
+        if (entry == null) {
+            throw new EntityNotFoundException("Queue token not found or expired");
+        }
+        entry.lastSeenMs = System.currentTimeMillis();
+        return toStatus(entry);
+    }
+
+    /**
+     * Admits a purchase or hold.
+     *
+     * @param token    The admission token presented with the request. Ignored if the waiting room is disabled.
+     * @param userId   The ID of the buyer.
+     * @param eventIds The IDs of all events in the buyer's cart. A token only admits the event it queued for.
+     * @return A {@link Permit} to be closed once the request has finished.
+     * @throws IllegalStateException if the token is missing, unknown, belongs to another user or event, or has not been admitted yet.
+     * @throws RejectedExecutionException if the event already has the maximum number of purchases in progress.
+     */
+    public Permit enter(String token, Integer userId, Set<Integer> eventIds) {
+        if (!enabled) {
+            return new Permit(null, null);
+        }
+        QueueEntry entry = token == null ? null : entriesByToken.get(token);
+        if (entry == null || !entry.userId.equals(userId)) {
+            throw new IllegalStateException("A valid admission token is required. Join the waiting room first");
+        }
+        // Otherwise a token from a quiet event would skip the queue of a busy one
+        if (eventIds.isEmpty() || !eventIds.stream().allMatch(entry.eventId::equals)) {
+            throw new IllegalStateException("The admission token is only valid for event " + entry.eventId);
+        }
+        if (!entry.isAdmitted() || entry.admittedUntilMs < System.currentTimeMillis()) {
+            throw new IllegalStateException("Not admitted yet. Please keep polling the queue status");
+        }
+        Semaphore semaphore = queuesByEventId.get(entry.eventId).purchasesInFlight;
+        if (!semaphore.tryAcquire()) {
+            throw new RejectedExecutionException("Too many purchases in progress for this event. Please retry shortly");
+        }
+        return new Permit(entry, semaphore);
+    }
+
+    /**
+     * Admits the next tokens of every queue, skipping buyers who stopped polling, and drops expired admissions.
+     */
+    @Scheduled(fixedRateString = "${concertfever.waiting-room.drain-interval-ms:1000}")
+    public void drain() {
+        long nowMs = System.currentTimeMillis();
+        for (EventQueue queue : queuesByEventId.values()) {
+            int admitted = 0;
+            while (admitted < admissionsPerInterval) {
+                QueueEntry entry = queue.waiting.poll();
+                if (entry == null) {
+                    break;
+                }
+                queue.length.decrementAndGet();
+                queue.headSequence = entry.sequence;
+                if (nowMs - entry.lastSeenMs > abandonTimeoutMs) {
+                    removeEntry(entry);
+                    continue;
+                }
+                entry.admittedUntilMs = nowMs + admissionWindowMs;
+                admitted++;
+            }
+        }
+        // Admitted tokens are bounded by the drain rate times the admission window, so this scan stays small
+        entriesByToken.values().removeIf(entry -> {
+            boolean expired = entry.isAdmitted() && entry.admittedUntilMs < nowMs;
+            if (expired) {
+                tokensByUserAndEvent.remove(entry.userId + ":" + entry.eventId, entry.token);
+            }
+            return expired;
+        });
+    }
+
+    // Helper Method
+    private void removeEntry(QueueEntry entry) {
+        entriesByToken.remove(entry.token, entry);
+        tokensByUserAndEvent.remove(entry.userId + ":" + entry.eventId, entry.token);
+    }
+
+    // Helper Method
+    private QueueStatusDto toStatus(QueueEntry entry) {
+        if (entry.isAdmitted()) {
+            return new QueueStatusDto(entry.token, entry.eventId, 0L, true, toLocalDateTime(entry.admittedUntilMs));
+        }
+        long position = Math.max(entry.sequence - queuesByEventId.get(entry.eventId).headSequence, 1);
+        return new QueueStatusDto(entry.token, entry.eventId, position, false, null);
+    }
+
+    // Helper Method
+    private static LocalDateTime toLocalDateTime(long epochMs) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMs), ZoneId.systemDefault());
+    }
+}
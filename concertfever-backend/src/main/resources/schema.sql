@@ -4,6 +4,9 @@
 # USE concertfever;
 
 -- Drop tables if they exist
+DROP TABLE IF EXISTS ticket_hold;
+DROP TABLE IF EXISTS idempotency_key;
+DROP TABLE IF EXISTS email_outbox;
 DROP TABLE IF EXISTS tickets;
 DROP TABLE IF EXISTS discount_coupons;
 DROP TABLE IF EXISTS ticket_category;
@@ -11,6 +14,7 @@ DROP TABLE IF EXISTS events;
 DROP TABLE IF EXISTS venue;
 DROP TABLE IF EXISTS user_confidential;
 DROP TABLE IF EXISTS user;
+DROP SEQUENCE IF EXISTS ticket_seq;
 
 -- Create User Table with Auto-Increment starting from 10001
 CREATE TABLE user (
@@ -29,6 +33,7 @@ CREATE TABLE user_confidential (
                       password VARCHAR(255) NOT NULL,
                       password_last_changed_at DATE NOT NULL,
                       account_balance DECIMAL(10, 2) NOT NULL,
+                      version BIGINT NOT NULL DEFAULT 0, -- Optimistic locking, also bumped by atomic balance updates
                       FOREIGN KEY (user_id) REFERENCES user(user_id)
 );
 
@@ -57,6 +62,11 @@ CREATE TABLE events (
                         FOREIGN KEY (organiser_user_id) REFERENCES user(user_id)
 );
 
+-- Indexes backing the keyset-paginated event listing (ordered by start_date, event_id)
+CREATE INDEX idx_events_start_date_event_id ON events (start_date, event_id);
+CREATE INDEX idx_events_category_start_date_event_id ON events (category, start_date, event_id);
+CREATE INDEX idx_venue_city ON venue (city);
+
 -- Create Ticket Category Table
 CREATE TABLE ticket_category (
                                 event_id INT NOT NULL,
@@ -79,9 +89,13 @@ CREATE TABLE discount_coupons (
                                  FOREIGN KEY (event_id) REFERENCES events(event_id)
 );
 
+-- Create Ticket ID Sequence
+-- Increments by the allocation size of the Ticket entity, so Hibernate can assign a block of IDs per round trip
+CREATE SEQUENCE ticket_seq START WITH 1 INCREMENT BY 50 NOCACHE;
+
 -- Create Tickets Table
 CREATE TABLE tickets (
-                         ticket_id INT AUTO_INCREMENT PRIMARY KEY,
+                         ticket_id INT NOT NULL DEFAULT (NEXT VALUE FOR ticket_seq) PRIMARY KEY,
                          event_id INT,
                          user_id INT NOT NULL,
                          coupon_id INT,
@@ -91,4 +105,51 @@ CREATE TABLE tickets (
                          FOREIGN KEY (event_id) REFERENCES events(event_id),
                          FOREIGN KEY (user_id) REFERENCES user(user_id),
                          FOREIGN KEY (coupon_id) REFERENCES discount_coupons(coupon_id)
-);
\ No newline at end of file
+);
+
+-- Create Email Outbox Table
+-- Emails are written here in the same transaction as the operation sending them and delivered by a background dispatcher
+CREATE TABLE email_outbox (
+                              outbox_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                              recipient VARCHAR(100) NOT NULL,
+                              subject VARCHAR(255) NOT NULL,
+                              html_body MEDIUMTEXT NOT NULL,
+                              sensitive BOOLEAN NOT NULL DEFAULT FALSE, -- Body is blanked once sent or failed
+                              status VARCHAR(10) NOT NULL, -- PENDING, SENDING, SENT or FAILED
+                              attempts INT NOT NULL DEFAULT 0,
+                              next_attempt_at DATETIME(6) NOT NULL,
+                              claimed_at DATETIME(6),
+                              created_at DATETIME(6) NOT NULL,
+                              sent_at DATETIME(6),
+                              last_error VARCHAR(500)
+);
+
+CREATE INDEX idx_email_outbox_status_next_attempt_at ON email_outbox (status, next_attempt_at);
+
+-- Create Idempotency Key Table
+-- Remembers the response of each purchase sent with an Idempotency-Key header, so retries are not executed again
+CREATE TABLE idempotency_key (
+                                 idempotency_key VARCHAR(100) PRIMARY KEY,
+                                 request_hash CHAR(64) NOT NULL,
+                                 status_code INT, -- NULL while the first request is still being processed
+                                 response_body VARCHAR(1000),
+                                 created_at DATETIME(6) NOT NULL, -- When the current claim was made; an unanswered claim is taken over after its lease
+                                 expires_at DATETIME(6) NOT NULL
+);
+
+CREATE INDEX idx_idempotency_key_expires_at ON idempotency_key (expires_at);
+
+-- Create Ticket Hold Table
+-- One row per held ticket category; held quantities are already deducted from ticket_category.remaining_quantity
+CREATE TABLE ticket_hold (
+                             hold_id CHAR(36) NOT NULL,
+                             event_id INT NOT NULL,
+                             ticket_category CHAR(1) NOT NULL,
+                             user_id INT NOT NULL,
+                             quantity INT NOT NULL,
+                             expires_at DATETIME(6) NOT NULL,
+                             PRIMARY KEY (hold_id, event_id, ticket_category),
+                             FOREIGN KEY (user_id) REFERENCES user(user_id)
+);
+
+CREATE INDEX idx_ticket_hold_user_id_expires_at ON ticket_hold (user_id, expires_at);
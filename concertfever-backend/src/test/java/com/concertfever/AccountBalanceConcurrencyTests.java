@@ -0,0 +1,183 @@
+package com.concertfever;
+
+import com.concertfever.concertfever_backend.ConcertfeverBackendApplication;
+import com.concertfever.concertfever_backend.dto.ChangeUserPasswordDto;
+import com.concertfever.concertfever_backend.dto.PurchaseTicketsDto;
+import com.concertfever.concertfever_backend.dto.TicketRequestDto;
+import com.concertfever.concertfever_backend.entities.TicketCategoryId;
+import com.concertfever.concertfever_backend.entities.User;
+import com.concertfever.concertfever_backend.entities.UserConfidential;
+import com.concertfever.concertfever_backend.repository.UserConfidentialRepository;
+import com.concertfever.concertfever_backend.service.InventoryService;
+import com.concertfever.concertfever_backend.service.LastLoginBuffer;
+import com.concertfever.concertfever_backend.service.PasswordHashingService;
+import com.concertfever.concertfever_backend.service.TicketService;
+import com.concertfever.concertfever_backend.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Hammers a single account with concurrent debits, purchases, top-ups and entity updates and checks that no balance
+ * change is lost. Password changes run alongside, so the versioned entity update has to win against the atomic balance
+ * updates without overwriting any of them.
+ */
+@SpringBootTest(classes = ConcertfeverBackendApplication.class)
+// More pooled connections than threads, so no operation times out waiting for one
+@TestPropertySource(properties = "spring.datasource.hikari.maximum-pool-size=64")
+class AccountBalanceConcurrencyTests {
+
+	private static final String EMAIL = "john.doe@test.com";
+	private static final int THREADS = 32;
+	// A quarter of the operations are purchases, fewer than the tickets remaining in the purchased category
+	private static final int OPERATIONS = 800;
+	private static final TicketCategoryId PURCHASED_CATEGORY = new TicketCategoryId(3, 'B');
+	private static final int COUPON_ID = 1;
+	private static final int PASSWORD_CHANGES = 20;
+	private static final String PASSWORD = "password";
+	private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private UserConfidentialRepository confidentialRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private LastLoginBuffer lastLoginBuffer;
+
+	@Autowired
+	private PasswordHashingService passwordHashingService;
+
+	@Autowired
+	private TicketService ticketService;
+
+	@Autowired
+	private InventoryService inventoryService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Integer userId;
+	private BigDecimal originalBalance;
+	private String originalPassword;
+	private long lastTicketId;
+	private long lastOutboxId;
+
+	@BeforeEach
+	void setUp() {
+		User user = userService.getUserByEmail(EMAIL);
+		userId = user.getUserId();
+		originalBalance = confidentialRepository.findAccountBalanceByUserId(userId);
+		// Enough funds that no debit is rejected, so the expected balance is exact
+		userService.updateAccountBalance(EMAIL, new BigDecimal(OPERATIONS));
+		// The seed data stores plain text passwords, which changeUserPassword does not accept
+		String hashedPassword = passwordHashingService.encode(PASSWORD);
+		originalPassword = transactionTemplate.execute(status -> {
+			UserConfidential userConfidential = confidentialRepository.findById(userId).orElseThrow();
+			String password = userConfidential.getPassword();
+			userConfidential.setPassword(hashedPassword);
+			return password;
+		});
+		lastTicketId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(ticket_id), 0) FROM tickets", Long.class);
+		lastOutboxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(outbox_id), 0) FROM email_outbox", Long.class);
+	}
+
+	@AfterEach
+	void tearDown() {
+		BigDecimal current = confidentialRepository.findAccountBalanceByUserId(userId);
+		userService.updateAccountBalance(EMAIL, originalBalance.subtract(current));
+		transactionTemplate.executeWithoutResult(status ->
+				confidentialRepository.findById(userId).orElseThrow().setPassword(originalPassword));
+		// Removes the purchased tickets and their confirmation emails, and returns the tickets to the inventory
+		int purchased = jdbcTemplate.update("DELETE FROM tickets WHERE ticket_id > ? AND user_id = ?", lastTicketId, userId);
+		jdbcTemplate.update("DELETE FROM email_outbox WHERE outbox_id > ? AND recipient = ?", lastOutboxId, EMAIL);
+		if (purchased > 0) {
+			inventoryService.release(Map.of(PURCHASED_CATEGORY, purchased));
+		}
+	}
+
+	@Test
+	void concurrentDebitsAndTopUpsLoseNoUpdates() throws Exception {
+		BigDecimal startBalance = confidentialRepository.findAccountBalanceByUserId(userId);
+		PurchaseTicketsDto purchase = new PurchaseTicketsDto(userId, COUPON_ID, List.of(new TicketRequestDto(
+				PURCHASED_CATEGORY.getEventId(), PURCHASED_CATEGORY.getTicketCategory(), AMOUNT)), null);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Callable<Void>> operations = new ArrayList<>();
+		for (int i = 0; i < OPERATIONS; i++) {
+			int operation = i % 4;
+			operations.add(() -> {
+				start.await();
+				switch (operation) {
+					// The bare guarded update purchaseTickets debits with
+					case 0 -> transactionTemplate.executeWithoutResult(status ->
+							assertEquals(1, confidentialRepository.debitAccountBalance(userId, AMOUNT)));
+					// A full purchase, which also locks the ticket category and inserts the ticket
+					case 1 -> ticketService.purchaseTickets(purchase);
+					case 2 -> userService.updateAccountBalance(EMAIL, AMOUNT);
+					// Last login written behind by plain JDBC, flushed while the balance updates run
+					default -> {
+						userService.updateUserLoginTime(EMAIL);
+						lastLoginBuffer.flush();
+					}
+				}
+				return null;
+			});
+		}
+
+		// One after the other, as concurrent changes from the same current password are meant to conflict
+		Callable<Void> passwordChanges = () -> {
+			start.await();
+			for (int i = 0; i < PASSWORD_CHANGES; i++) {
+				assertEquals("Password Updated Successfully",
+						userService.changeUserPassword(new ChangeUserPasswordDto(EMAIL, PASSWORD, PASSWORD)));
+			}
+			return null;
+		};
+
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+		try {
+			List<Future<Void>> futures = new ArrayList<>();
+			futures.add(executor.submit(passwordChanges));
+			for (Callable<Void> operation : operations) {
+				futures.add(executor.submit(operation));
+			}
+			start.countDown();
+			for (Future<Void> future : futures) {
+				future.get(60, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdown();
+			assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+		}
+
+		// Debits and purchases both take AMOUNT from the balance
+		long debits = OPERATIONS / 2;
+		long topUps = OPERATIONS / 4;
+		BigDecimal expected = startBalance.add(AMOUNT.multiply(BigDecimal.valueOf(topUps - debits)));
+		assertEquals(0, expected.compareTo(confidentialRepository.findAccountBalanceByUserId(userId)));
+	}
+
+}